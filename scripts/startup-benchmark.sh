@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Time to the first answered /move and resident memory right after it, for a container
+# image or a local command:
+#   scripts/startup-benchmark.sh image app:plain
+#   scripts/startup-benchmark.sh command java -jar target/app-0.0.1-SNAPSHOT.jar
+# Runs each start RUNS times (default 5) and prints one line per run.
+set -euo pipefail
+
+mode=${1:?usage: $0 image <name> | command <cmd...>}
+shift
+runs=${RUNS:-5}
+port=${PORT:-8080}
+body='{"gameId":1,"narrowingIn":10,"field":[["","","","","","","","","","","","",""],["","","","","","","","","","","","",""],["","","*","","","","","","","","ES","",""],["","","","","","","C","","","","","",""],["","","","","","","","","","","","",""],["","","","","","","","","","","","",""],["","","","","","","PN","","","","","",""],["","","","","","","","","","","","",""],["","","","","","C","","","","","","",""],["","","","","","","","","","","","",""],["","EE","","","","","","","","","*","",""],["","","","","","","","","","","","",""],["","","","","","","","","","","","",""]]}'
+
+now_ms() {
+  date +%s%3N
+}
+
+for run in $(seq 1 "$runs"); do
+  start=$(now_ms)
+  if [ "$mode" = image ]; then
+    id=$(docker run -d --rm -p "$port:8080" "$1")
+  else
+    "$@" --server.port="$port" >/dev/null 2>&1 &
+    pid=$!
+  fi
+
+  until curl -sf -o /dev/null -H 'Content-Type: application/json' -d "$body" "localhost:$port/move"; do
+    sleep 0.01
+  done
+  elapsed=$(( $(now_ms) - start ))
+
+  if [ "$mode" = image ]; then
+    rss=$(docker stats --no-stream --format '{{.MemUsage}}' "$id" | cut -d/ -f1)
+    docker stop "$id" >/dev/null
+  else
+    rss="$(awk '/VmRSS/ {printf "%.0fMiB", $2 / 1024}' "/proc/$pid/status")"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+  fi
+  echo "run $run: first /move after ${elapsed} ms, rss ${rss}"
+done
@@ -0,0 +1,191 @@
+package caffeine.machines.app.game;
+
+import caffeine.machines.app.controller.SpaceshipController;
+import caffeine.machines.app.search.LookaheadSearch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-turn cost of each stage of the decision pipeline on the {@link FieldCorpus}.
+ * Run with {@code ./mvnw -Pjmh compile exec:exec}; the gc profiler adds the allocation
+ * rate per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionBenchmark {
+
+    @Param({"empty", "crowded", "coins", "narrowing", "large"})
+    public String corpus;
+
+    private FieldGrid field;
+    private FieldGrid turnedField;
+    private boolean turned;
+    private byte[] json;
+    private ObjectMapper objectMapper;
+    private int narrowingIn;
+    private GameSession session;
+    private TurnContext turn;
+    private Position farthest;
+    private SpaceshipController controller;
+    private SpaceshipController.GameState gameState;
+    private CandidatePool candidates;
+    private StrategyPortfolio racing;
+    private PatternTable patterns;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<List<String>> rows = FieldCorpus.field(corpus);
+        field = FieldGrid.of(rows);
+        turnedField = turnPlayer(rows);
+        narrowingIn = FieldCorpus.narrowingIn(corpus);
+        objectMapper = new ObjectMapper();
+        json = objectMapper.writeValueAsBytes(Map.of("gameId", 1, "narrowingIn", narrowingIn, "field", rows));
+        session = new GameSession(1, System.nanoTime());
+        turn = TurnContext.parse(field, field.getWidth(), narrowingIn);
+        farthest = farthestReachable(turn);
+
+        LookaheadSearch search = new LookaheadSearch(Duration.ofMillis(15), 6);
+        controller = new SpaceshipController(new GameSessionStore(16, Duration.ofMinutes(10)), new MoveService(search, new DecisionCache(0)));
+        gameState = new SpaceshipController.GameState(field, narrowingIn, 1);
+        // Splits every candidate set, to compare against the sequential pass
+        candidates = new CandidatePool(Math.max(2, Runtime.getRuntime().availableProcessors()), 0);
+        // Races the tiers whatever the core count
+        racing = new StrategyPortfolio(true, List.of());
+        // Knows the corpus field, so every lookup is a hit
+        PatternTable.Builder builder = new PatternTable.Builder();
+        builder.add(turn);
+        Path file = Files.createTempFile("patterns", ".bin");
+        file.toFile().deleteOnExit();
+        builder.write(file, 1);
+        patterns = PatternTable.load(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        candidates.close();
+        racing.close();
+    }
+
+    @Benchmark
+    public SpaceshipController.GameState readGameState() throws IOException {
+        return objectMapper.readValue(json, SpaceshipController.GameState.class);
+    }
+
+    @Benchmark
+    public TurnContext parseField() {
+        return TurnContext.parse(field, field.getWidth(), narrowingIn);
+    }
+
+    @Benchmark
+    public DistanceField findPath() {
+        // The field expands lazily; asking for the farthest cell runs the whole search
+        DistanceField distances = new DistanceField(turn.getBoard(), turn.getPlayer(), turn.getPlayerDirection());
+        distances.getDistance(farthest.row, farthest.col);
+        return distances;
+    }
+
+    @Benchmark
+    public SpaceTimePlanner.Route planRoute() {
+        // Worst case for the planner: the longest static route on the field
+        return new SpaceTimePlanner(turn, SpaceTimePlanner.DEFAULT_HORIZON).planTo(farthest);
+    }
+
+    @Benchmark
+    public SpaceTimePlanner.Route planToSafety() {
+        return new SpaceTimePlanner(turn, SpaceTimePlanner.DEFAULT_HORIZON).planToSafety();
+    }
+
+    @Benchmark
+    public String calculateBestMove() {
+        session.getLastMoves().clear();
+        // Forget the previous turn so the field is analysed from scratch
+        session.rememberTurn(null, null);
+        return new MoveCalculator(field, session).calculateMove(narrowingIn);
+    }
+
+    @Benchmark
+    public String calculateBestMoveRaced() {
+        session.getLastMoves().clear();
+        session.rememberTurn(null, null);
+        return new MoveCalculator(field, session, null, null, null, null, racing).calculateMove(narrowingIn);
+    }
+
+    @Benchmark
+    public String calculateBestMoveWithPatterns() {
+        session.getLastMoves().clear();
+        session.rememberTurn(null, null);
+        return new MoveCalculator(field, session, null, null, null, null, null, patterns).calculateMove(narrowingIn);
+    }
+
+    @Benchmark
+    public String localEmergency() {
+        // Parsed afresh, as the lazily built threat map is part of the cost
+        return MoveCalculator.localEmergencyMove(TurnContext.parse(field, field.getWidth(), narrowingIn));
+    }
+
+    @Benchmark
+    public int localEmergencyFromPatterns() {
+        return patterns.lookup(TurnContext.parse(field, field.getWidth(), narrowingIn));
+    }
+
+    @Benchmark
+    public String calculateBestMoveIncremental() {
+        // Alternates between two fields that differ in the ship's facing, like consecutive turns
+        session.getLastMoves().clear();
+        turned = !turned;
+        return new MoveCalculator(turned ? turnedField : field, session).calculateMove(narrowingIn);
+    }
+
+    @Benchmark
+    public String calculateStrategicMove() {
+        return new MoveCalculator(field, session).calculateStrategicMove(narrowingIn);
+    }
+
+    @Benchmark
+    public String calculateStrategicMoveParallel() {
+        return new MoveCalculator(field, session, null, null, null, candidates).calculateStrategicMove(narrowingIn);
+    }
+
+    @Benchmark
+    public byte[] makeMove() {
+        // Includes the lookahead search and the fire-every-second-turn shortcut, as served
+        return controller.makeMove(gameState);
+    }
+
+    private static Position farthestReachable(TurnContext turn) {
+        DistanceField distances = turn.getDistanceField();
+        Position farthest = turn.getPlayer();
+        for (int row = 0; row < turn.getBoard().getHeight(); row++) {
+            for (int col = 0; col < turn.getBoard().getWidth(); col++) {
+                if (distances.isReachable(row, col)
+                        && distances.getDistance(row, col) > distances.getDistance(farthest.row, farthest.col)) {
+                    farthest = new Position(row, col);
+                }
+            }
+        }
+        return farthest;
+    }
+
+    private static FieldGrid turnPlayer(List<List<String>> rows) {
+        List<List<String>> turned = new ArrayList<>();
+        for (List<String> row : rows) {
+            List<String> copy = new ArrayList<>(row);
+            copy.replaceAll(cell -> cell.startsWith("P") ? (cell.equals("PN") ? "PS" : "PN") : cell);
+            turned.add(copy);
+        }
+        return FieldGrid.of(turned);
+    }
+}
@@ -0,0 +1,66 @@
+package caffeine.machines.app.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Representative field states for the benchmarks, generated from fixed seeds.
+ */
+public final class FieldCorpus {
+    private static final String[] FACINGS = {"N", "S", "E", "W"};
+
+    private FieldCorpus() {
+    }
+
+    public static List<List<String>> field(String name) {
+        return switch (name) {
+            // Only our ship
+            case "empty" -> generate(1, GameRules.FIELD_SIZE, 0, 0, 0, false);
+            // Late-game clutter: many asteroids and enemies
+            case "crowded" -> generate(2, GameRules.FIELD_SIZE, 30, 6, 8, false);
+            // Lots of coin targets for the path search
+            case "coins" -> generate(3, GameRules.FIELD_SIZE, 8, 2, 25, false);
+            // Ship on the outer ring right before it closes
+            case "narrowing" -> generate(4, GameRules.FIELD_SIZE, 12, 3, 6, true);
+            // Larger-arena variant, 100x100 at the crowded field's density
+            case "large" -> generate(5, 100, 1_800, 350, 470, false);
+            default -> throw new IllegalArgumentException("Unknown corpus entry: " + name);
+        };
+    }
+
+    public static int narrowingIn(String name) {
+        return "narrowing".equals(name) ? 1 : 12;
+    }
+
+    private static List<List<String>> generate(long seed, int size, int asteroids, int enemies, int coins, boolean playerOnBorder) {
+        Random random = new Random(seed);
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            field.add(new ArrayList<>(Collections.nCopies(size, "")));
+        }
+
+        if (playerOnBorder) {
+            field.get(0).set(size / 2, "P" + FACINGS[random.nextInt(4)]);
+        } else {
+            field.get(size / 2).set(size / 2, "P" + FACINGS[random.nextInt(4)]);
+        }
+        place(field, random, asteroids, () -> "*");
+        place(field, random, enemies, () -> "E" + FACINGS[random.nextInt(4)]);
+        place(field, random, coins, () -> "C");
+        return field;
+    }
+
+    private static void place(List<List<String>> field, Random random, int count, java.util.function.Supplier<String> cell) {
+        int size = field.size();
+        for (int placed = 0; placed < count; ) {
+            int row = random.nextInt(size);
+            int col = random.nextInt(size);
+            if (field.get(row).get(col).isEmpty()) {
+                field.get(row).set(col, cell.get());
+                placed++;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package caffeine.machines.app.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * Registers the {@link GameChannelHandler} turn channel at {@code /ws/game}.
+ * <p>
+ * Browsers may only connect from {@code game.channel.allowed-origins} (same origin when
+ * empty); clients that send no {@code Origin} are not affected. Text messages may be up to
+ * {@code game.channel.max-message-size}, by default enough for a snapshot of a
+ * {@link caffeine.machines.app.game.GameRules#MAX_FIELD_SIZE} field.
+ */
+@Configuration
+@EnableWebSocket
+public class GameChannelConfig implements WebSocketConfigurer {
+    private final SpaceshipController controller;
+    private final ObjectMapper objectMapper;
+    private final String[] allowedOrigins;
+
+    public GameChannelConfig(SpaceshipController controller, ObjectMapper objectMapper,
+                             @Value("${game.channel.allowed-origins:}") String[] allowedOrigins) {
+        this.controller = controller;
+        this.objectMapper = objectMapper;
+        this.allowedOrigins = allowedOrigins;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new GameChannelHandler(controller, objectMapper), "/ws/game").setAllowedOrigins(allowedOrigins);
+    }
+
+    @Bean
+    @Conditional(RunningServer.class)
+    public ServletServerContainerFactoryBean webSocketContainer(
+            @Value("${game.channel.max-message-size:256KB}") DataSize maxMessageSize) {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize((int) maxMessageSize.toBytes());
+        return container;
+    }
+
+    // Only an embedded server has a WebSocket container to configure; mock servlet contexts do not
+    static final class RunningServer implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getResourceLoader() instanceof WebServerApplicationContext;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package caffeine.machines.app.controller;
+
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.GameRules;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Persistent turn channel for one game per connection, at {@code /ws/game}.
+ * <p>
+ * The first message is a snapshot shaped like a {@code /move} request
+ * ({@code {"gameId":1,"narrowingIn":15,"field":[[...]]}}). Later turns may instead send only
+ * the changed cells, {@code {"narrowingIn":14,"diff":[[row,col,"PN"],[row,col,""]]}}, which
+ * are applied to the field kept for the connection. A snapshot must carry {@code narrowingIn};
+ * a diff without it continues the previous turn's countdown. An optional {@code deadlineMs}
+ * plays the role of the {@code X-Move-Deadline-Ms} header. Every message is answered with
+ * {@code {"move":"M"}}, or {@code {"error":"..."}} when it could not be applied; after an
+ * error the client should send a snapshot.
+ */
+public class GameChannelHandler extends TextWebSocketHandler {
+    private static final Logger log = LoggerFactory.getLogger(GameChannelHandler.class);
+    private static final String STATE = GameChannelHandler.class.getName();
+
+    private final SpaceshipController controller;
+    private final JsonFactory jsonFactory;
+
+    public GameChannelHandler(SpaceshipController controller, ObjectMapper objectMapper) {
+        this.controller = controller;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        // Messages of one connection arrive one at a time, so the kept field is never shared
+        ChannelState state = (ChannelState) session.getAttributes().get(STATE);
+        byte[] reply;
+        try (JsonParser parser = jsonFactory.createParser(message.asBytes())) {
+            Turn turn = Turn.read(parser);
+            if (turn.field != null) {
+                if (turn.narrowingIn == null) {
+                    throw new IllegalArgumentException("narrowingIn required");
+                }
+                state = new ChannelState(turn.gameId != null ? turn.gameId : 0, turn.field);
+                session.getAttributes().put(STATE, state);
+            } else if (state == null) {
+                throw new IllegalArgumentException("snapshot required");
+            }
+            turn.applyDiff(state.field);
+            // A missing countdown would read as 0, the narrowing emergency
+            state.narrowingIn = turn.narrowingIn != null ? turn.narrowingIn : nextNarrowingIn(state.narrowingIn);
+
+            SpaceshipController.GameState gameState =
+                    new SpaceshipController.GameState(state.field, state.narrowingIn, state.gameId);
+            reply = MoveResponses.of(controller.decide(gameState, controller.requestDeadline(turn.deadlineMs)));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Rejected channel message", e);
+            session.getAttributes().remove(STATE);
+            // Our own messages are plain text; parser messages can contain anything
+            reply = error(e instanceof IllegalArgumentException ? e.getMessage() : "malformed message");
+        }
+        session.sendMessage(new TextMessage(reply));
+    }
+
+    // The countdown restarts at the interval once a ring closes
+    private static int nextNarrowingIn(int previous) {
+        return previous > 1 ? previous - 1 : GameRules.NARROWING_INTERVAL;
+    }
+
+    private static byte[] error(String message) {
+        return ("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class ChannelState {
+        final int gameId;
+        final FieldGrid field;
+        int narrowingIn;
+
+        ChannelState(int gameId, FieldGrid field) {
+            this.gameId = gameId;
+            this.field = field;
+        }
+    }
+
+    private static final class Turn {
+        Integer gameId;
+        Integer narrowingIn;
+        Long deadlineMs;
+        FieldGrid field;
+        // Flattened (row, col, code) triples
+        int[] diff = new int[0];
+        int diffLength;
+
+        static Turn read(JsonParser parser) throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("expected an object");
+            }
+            Turn turn = new Turn();
+            for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "gameId" -> turn.gameId = parser.getValueAsInt();
+                    case "narrowingIn" -> turn.narrowingIn = value == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                    case "deadlineMs" -> turn.deadlineMs = value == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+                    case "field" -> turn.field = GameStateDeserializer.readField(parser);
+                    case "diff" -> turn.readDiff(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            return turn;
+        }
+
+        private void readDiff(JsonParser parser) throws IOException {
+            expect(parser.currentToken(), JsonToken.START_ARRAY);
+            diff = new int[48];
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                expect(parser.currentToken(), JsonToken.START_ARRAY);
+                expect(parser.nextToken(), JsonToken.VALUE_NUMBER_INT);
+                int row = parser.getIntValue();
+                expect(parser.nextToken(), JsonToken.VALUE_NUMBER_INT);
+                int col = parser.getIntValue();
+                expect(parser.nextToken(), JsonToken.VALUE_STRING);
+                byte code = FieldGrid.encode(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                expect(parser.nextToken(), JsonToken.END_ARRAY);
+                if (diffLength + 3 > diff.length) {
+                    diff = Arrays.copyOf(diff, diff.length * 2);
+                }
+                diff[diffLength++] = row;
+                diff[diffLength++] = col;
+                diff[diffLength++] = code;
+            }
+        }
+
+        // Checks every cell first, so a bad diff leaves the kept field untouched
+        void applyDiff(FieldGrid target) {
+            for (int i = 0; i < diffLength; i += 3) {
+                if (diff[i] < 0 || diff[i] >= target.getHeight() || diff[i + 1] < 0 || diff[i + 1] >= target.getWidth()) {
+                    throw new IllegalArgumentException("diff cell " + diff[i] + "," + diff[i + 1] + " is outside the field");
+                }
+            }
+            for (int i = 0; i < diffLength; i += 3) {
+                target.set(diff[i], diff[i + 1], (byte) diff[i + 2]);
+            }
+        }
+
+        private static void expect(JsonToken actual, JsonToken expected) {
+            if (actual != expected) {
+                throw new IllegalArgumentException("expected " + expected + " in diff, got " + actual);
+            }
+        }
+    }
+}
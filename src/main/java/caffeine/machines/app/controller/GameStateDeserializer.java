@@ -0,0 +1,80 @@
+package caffeine.machines.app.controller;
+
+import caffeine.machines.app.game.FieldGrid;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads a {@link SpaceshipController.GameState} token by token. Field cells are decoded from
+ * the parser's character buffer straight into a {@link FieldGrid}, so no cell strings or
+ * nested lists are created. Unknown properties are skipped.
+ */
+public class GameStateDeserializer extends JsonDeserializer<SpaceshipController.GameState> {
+    // Large enough for a 13x13 field without growing
+    private static final int INITIAL_CELLS = 256;
+
+    @Override
+    public SpaceshipController.GameState deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return (SpaceshipController.GameState) context.handleUnexpectedToken(SpaceshipController.GameState.class, parser);
+        }
+        SpaceshipController.GameState state = new SpaceshipController.GameState();
+        for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "field" -> state.setField(value == JsonToken.VALUE_NULL ? null : readField(parser));
+                case "narrowingIn" -> state.setNarrowingIn(parser.getValueAsInt());
+                case "gameId" -> state.setGameId(parser.getValueAsInt());
+                default -> parser.skipChildren();
+            }
+        }
+        return state;
+    }
+
+    static FieldGrid readField(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_ARRAY);
+        byte[] cells = new byte[INITIAL_CELLS];
+        int size = 0;
+        int width = -1;
+        int height = 0;
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser, JsonToken.START_ARRAY);
+            int rowStart = size;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (size == cells.length) {
+                    cells = Arrays.copyOf(cells, cells.length * 2);
+                }
+                if (token == JsonToken.VALUE_STRING) {
+                    cells[size++] = FieldGrid.encode(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                } else {
+                    // Anything but a string is not a cell we understand; it blocks the cell
+                    parser.skipChildren();
+                    cells[size++] = FieldGrid.UNKNOWN;
+                }
+            }
+            int rowLength = size - rowStart;
+            if (width < 0) {
+                width = rowLength;
+            } else if (rowLength != width) {
+                throw MismatchedInputException.from(parser, FieldGrid.class,
+                        "Field row " + height + " has " + rowLength + " cells, expected " + width);
+            }
+            height++;
+        }
+        return new FieldGrid(Math.max(width, 0), height, cells);
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+        if (parser.currentToken() != expected) {
+            throw MismatchedInputException.from(parser, FieldGrid.class,
+                    "Malformed field: expected " + expected + ", got " + parser.currentToken());
+        }
+    }
+}
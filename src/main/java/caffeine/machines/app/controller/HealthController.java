@@ -1,17 +1,36 @@
 package caffeine.machines.app.controller;
 
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collections;
 import java.util.Map;
 
+/**
+ * {@code /healthz} is the liveness probe and answers as soon as the server is up;
+ * {@code /readyz} is the readiness probe and answers 503 until the {@link WarmUp} is done.
+ */
 @RestController
 public class HealthController {
+    private final WarmUp warmUp;
+
+    public HealthController(WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
 
     @GetMapping("/healthz")
     public Map<String, String> healthz() {
         return Collections.singletonMap("status", "OK");
     }
+
+    @GetMapping("/readyz")
+    public ResponseEntity<Map<String, String>> readyz() {
+        if (!warmUp.isComplete()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Collections.singletonMap("status", "WARMING_UP"));
+        }
+        return ResponseEntity.ok(Collections.singletonMap("status", "READY"));
+    }
 }
@@ -0,0 +1,55 @@
+package caffeine.machines.app.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * {@code /move} response bodies, encoded once. The arrays are shared and must not be modified.
+ */
+final class MoveResponses {
+    private static final byte[] MOVE = encode("M");
+    private static final byte[] LEFT = encode("L");
+    private static final byte[] RIGHT = encode("R");
+    private static final byte[] FIRE = encode("F");
+
+    private MoveResponses() {
+    }
+
+    static byte[] of(String move) {
+        return switch (move) {
+            case "M" -> MOVE;
+            case "L" -> LEFT;
+            case "R" -> RIGHT;
+            case "F" -> FIRE;
+            default -> encode(move);
+        };
+    }
+
+    /**
+     * JSON array of the bodies of {@code moves}, in order.
+     */
+    static byte[] ofAll(List<String> moves) {
+        byte[][] bodies = new byte[moves.size()][];
+        int length = 2 + Math.max(0, moves.size() - 1);
+        for (int i = 0; i < bodies.length; i++) {
+            bodies[i] = of(moves.get(i));
+            length += bodies[i].length;
+        }
+        byte[] out = new byte[length];
+        int position = 0;
+        out[position++] = '[';
+        for (int i = 0; i < bodies.length; i++) {
+            if (i > 0) {
+                out[position++] = ',';
+            }
+            System.arraycopy(bodies[i], 0, out, position, bodies[i].length);
+            position += bodies[i].length;
+        }
+        out[position] = ']';
+        return out;
+    }
+
+    private static byte[] encode(String move) {
+        return ("{\"move\":\"" + move + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,38 @@
+package caffeine.machines.app.controller;
+
+import caffeine.machines.app.game.MoveMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Jackson converter that reports request deserialization of {@code /move} and {@code /moves} to
+ * {@link MoveMetrics}. Replaces the converter Spring Boot would create.
+ */
+@Component
+public class TimedJsonConverter extends MappingJackson2HttpMessageConverter {
+    private final MoveMetrics metrics;
+
+    public TimedJsonConverter(ObjectMapper objectMapper, MoveMetrics metrics) {
+        super(objectMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        long start = System.nanoTime();
+        Object result = super.read(type, contextClass, inputMessage);
+        if (result instanceof SpaceshipController.GameState
+                || result instanceof List<?> batch && !batch.isEmpty() && batch.get(0) instanceof SpaceshipController.GameState) {
+            metrics.record(MoveMetrics.Phase.DESERIALIZE, System.nanoTime() - start);
+        }
+        return result;
+    }
+}
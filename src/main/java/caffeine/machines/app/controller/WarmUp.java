@@ -0,0 +1,186 @@
+package caffeine.machines.app.controller;
+
+import caffeine.machines.app.game.CandidatePool;
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.GameSessionStore;
+import caffeine.machines.app.game.MoveMetrics;
+import caffeine.machines.app.game.MoveService;
+import caffeine.machines.app.game.PatternTable;
+import caffeine.machines.app.game.StrategyPortfolio;
+import caffeine.machines.app.replay.ReplayRecorder;
+import caffeine.machines.app.search.LookaheadSearch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+
+import static caffeine.machines.app.game.GameRules.FIELD_SIZE;
+
+/**
+ * Plays synthetic games through the decision pipeline right after startup, from JSON
+ * decoding to the encoded response, until the JIT compiler has settled. Until then
+ * {@link #isComplete()} is false and the readiness probe reports the instance as not ready,
+ * so the first real games do not run on interpreted code.
+ * <p>
+ * The warm-up stops after two consecutive rounds in which compilation took less than 2% of
+ * the round, or after {@code game.warmup.max-duration}. It plays through a controller of its
+ * own, with the application's search and strategies but its own sessions, decision cache and
+ * metrics and without replay recording, so no warm-up game shows up in production state.
+ * The forced shot on every second turn is skipped, so every decision runs the pipeline.
+ */
+@Component
+public class WarmUp {
+    private static final Logger log = LoggerFactory.getLogger(WarmUp.class);
+    // Long enough for a few dozen decisions with the full search budget
+    private static final long ROUND_NANOS = Duration.ofMillis(250).toNanos();
+    private static final double SETTLED_SHARE = 0.02;
+    private static final int SETTLED_ROUNDS = 2;
+    private static final int GAMES = 8;
+    // Random fields never repeat, so the private cache only has to exercise its code path
+    private static final int CACHE_SIZE = 1024;
+    private static final String[] FACINGS = {"N", "E", "S", "W"};
+
+    private final SpaceshipController controller;
+    private final ObjectMapper objectMapper;
+    private final GameSessionStore sessionStore;
+    private final Duration maxDuration;
+    private volatile boolean complete;
+
+    @Autowired
+    public WarmUp(ObjectMapper objectMapper, LookaheadSearch search, CandidatePool candidates,
+                  StrategyPortfolio portfolio, PatternTable patterns,
+                  @Value("${game.warmup.enabled:true}") boolean enabled,
+                  @Value("${game.warmup.max-duration:30s}") Duration maxDuration) {
+        this(new MoveService(search, new DecisionCache(CACHE_SIZE), MoveMetrics.standalone(), ReplayRecorder.disabled(),
+                candidates, portfolio, patterns), objectMapper, enabled, maxDuration);
+    }
+
+    /**
+     * Warms up through {@code moveService}, which should not be the one serving games.
+     */
+    public WarmUp(MoveService moveService, ObjectMapper objectMapper, boolean enabled, Duration maxDuration) {
+        this.sessionStore = new GameSessionStore(GAMES, Duration.ofMinutes(10));
+        this.controller = new SpaceshipController(sessionStore, moveService);
+        this.objectMapper = objectMapper;
+        this.maxDuration = maxDuration;
+        this.complete = !enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (complete) {
+            return;
+        }
+        // Liveness checks are answered meanwhile
+        Thread thread = new Thread(this::run, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Warms up on the calling thread and returns the number of decisions made.
+     */
+    public int run() {
+        long start = System.nanoTime();
+        int decisions = 0;
+        int settledRounds = 0;
+        try {
+            Random random = new Random(start);
+            long compiled = compilationMillis();
+            while (settledRounds < SETTLED_ROUNDS && System.nanoTime() - start < maxDuration.toNanos()) {
+                long roundStart = System.nanoTime();
+                while (System.nanoTime() - roundStart < ROUND_NANOS) {
+                    decisions += playGames(random);
+                }
+                long roundNanos = System.nanoTime() - roundStart;
+                long compiledNow = compilationMillis();
+                // Without compilation monitoring the warm-up runs for its full duration
+                boolean settled = compiled >= 0 && (compiledNow - compiled) * 1_000_000 < roundNanos * SETTLED_SHARE;
+                settledRounds = settled ? settledRounds + 1 : 0;
+                compiled = compiledNow;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed after {} decisions", decisions, e);
+        } finally {
+            for (int game = 1; game <= GAMES; game++) {
+                sessionStore.remove(-game);
+            }
+            complete = true;
+        }
+        log.info("Warm-up finished after {} decisions in {} ms, compilation {}",
+                decisions, (System.nanoTime() - start) / 1_000_000, settledRounds >= SETTLED_ROUNDS ? "settled" : "still running");
+        return decisions;
+    }
+
+    // One fresh field per game, played for a turn in every facing: the first turn is parsed
+    // from scratch, the others take the incremental path, and none repeats an earlier decision
+    private int playGames(Random random) {
+        int decisions = 0;
+        for (int game = 1; game <= GAMES; game++) {
+            String[] cells = randomCells(random);
+            int player = random.nextInt(cells.length);
+            int narrowingIn = random.nextInt(20);
+            for (String facing : FACINGS) {
+                cells[player] = "P" + facing;
+                byte[] body = json(-game, narrowingIn, cells);
+                try {
+                    SpaceshipController.GameState state = objectMapper.readValue(body, SpaceshipController.GameState.class);
+                    controller.makeMove(state, null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                // The next turn would be the forced shot, which does no work
+                GameSession session = sessionStore.get(-game);
+                if (session != null && session.getFireActionCounter() % 2 == 0) {
+                    session.incrementFireActionCounter();
+                }
+                decisions++;
+            }
+        }
+        return decisions;
+    }
+
+    private static String[] randomCells(Random random) {
+        String[] cells = new String[FIELD_SIZE * FIELD_SIZE];
+        for (int i = 0; i < cells.length; i++) {
+            int roll = random.nextInt(100);
+            cells[i] = roll < 10 ? "*" : roll < 14 ? "C" : roll < 19 ? "E" + FACINGS[random.nextInt(4)] : "";
+        }
+        return cells;
+    }
+
+    private static byte[] json(int gameId, int narrowingIn, String[] cells) {
+        StringBuilder out = new StringBuilder(cells.length * 5 + 64);
+        out.append("{\"gameId\":").append(gameId).append(",\"narrowingIn\":").append(narrowingIn).append(",\"field\":[");
+        for (int row = 0; row < FIELD_SIZE; row++) {
+            out.append(row == 0 ? "[" : ",[");
+            for (int col = 0; col < FIELD_SIZE; col++) {
+                out.append(col == 0 ? "\"" : ",\"").append(cells[row * FIELD_SIZE + col]).append('"');
+            }
+            out.append(']');
+        }
+        return out.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long compilationMillis() {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        return compiler != null && compiler.isCompilationTimeMonitoringSupported() ? compiler.getTotalCompilationTime() : -1;
+    }
+}
@@ -0,0 +1,37 @@
+package caffeine.machines.app.game;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts decisions in flight and tells callers to fall back to the cheap emergency tier
+ * once more than {@code game.move.max-full-concurrency} are being evaluated at once.
+ */
+@Component
+public class AdmissionControl {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int maxFullConcurrency;
+
+    public AdmissionControl(@Value("${game.move.max-full-concurrency:0}") int maxFullConcurrency) {
+        // 0 means two full evaluations per core
+        this.maxFullConcurrency = maxFullConcurrency > 0 ? maxFullConcurrency : Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    /**
+     * Registers a decision; returns false when it should be shed to the cheap tier.
+     * Every call must be paired with {@link #exit()}.
+     */
+    public boolean enter() {
+        return inFlight.incrementAndGet() <= maxFullConcurrency;
+    }
+
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,49 @@
+package caffeine.machines.app.game;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Work-stealing pool for evaluating the states of a batch request in parallel.
+ * {@code game.batch.parallelism} of 0 uses one worker per core.
+ */
+@Component
+public class BatchExecutor implements AutoCloseable {
+    private final ForkJoinPool pool;
+
+    public BatchExecutor(@Value("${game.batch.parallelism:0}") int parallelism) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Applies {@code task} to every item in parallel and returns the results in item order.
+     * The task is expected to handle its own failures; an exception escaping it fails the call.
+     */
+    public <T, R> List<R> map(List<T> items, Function<T, R> task) {
+        if (items.size() == 1) {
+            return List.of(task.apply(items.get(0)));
+        }
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            tasks.add(pool.submit(() -> task.apply(item)));
+        }
+        List<R> results = new ArrayList<>(items.size());
+        for (ForkJoinTask<R> future : tasks) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
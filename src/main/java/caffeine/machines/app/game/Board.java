@@ -0,0 +1,433 @@
+package caffeine.machines.app.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bitboard view of the playing field. Every cell {@code row * width + col} is one bit,
+ * so a 13x13 field fits into three {@code long}s per mask. Neighbourhood, ray and
+ * fire-line queries are done with word shifts instead of cell-by-cell scans.
+ */
+public class Board {
+    private final int width;
+    private final int height;
+    private final int words;
+
+    private final long[] inside;
+    private final long[] firstColumn;
+    private final long[] lastColumn;
+
+    private final long[] asteroids;
+    private final long[] enemies;
+    private final long[] coins;
+    private final long[] walkable;
+    private final long[] unknown;
+    private int playerIndex = -1;
+    private int playerCount;
+
+    // Built on first use, possibly by strategies racing on several threads: the array is
+    // complete before it is published, and two threads building it at once agree on it
+    private volatile long[] asteroidCover;
+
+    // Shares the immutable geometry masks of another board
+    private Board(int width, int height, int words, long[] inside, long[] firstColumn, long[] lastColumn) {
+        this.width = width;
+        this.height = height;
+        this.words = words;
+        this.inside = inside;
+        this.firstColumn = firstColumn;
+        this.lastColumn = lastColumn;
+        this.asteroids = new long[words];
+        this.enemies = new long[words];
+        this.coins = new long[words];
+        this.walkable = new long[words];
+        this.unknown = new long[words];
+    }
+
+    public Board(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.words = (width * height + 63) >>> 6;
+        this.inside = new long[words];
+        this.firstColumn = new long[words];
+        this.lastColumn = new long[words];
+        this.asteroids = new long[words];
+        this.enemies = new long[words];
+        this.coins = new long[words];
+        this.walkable = new long[words];
+        this.unknown = new long[words];
+
+        for (int i = 0; i < width * height; i++) {
+            set(inside, i);
+        }
+        for (int row = 0; row < height; row++) {
+            set(firstColumn, index(row, 0));
+            set(lastColumn, index(row, width - 1));
+        }
+    }
+
+    /**
+     * Builds a board from the raw request field: {@code ""} is empty, {@code "*"} an
+     * asteroid, anything else is identified by its first character.
+     */
+    public static Board parse(List<List<String>> field, int size) {
+        return parse(FieldGrid.of(field), size);
+    }
+
+    /**
+     * Builds a board from the top-left {@code size x size} cells of a decoded field.
+     */
+    public static Board parse(FieldGrid field, int size) {
+        if (field.getWidth() < size || field.getHeight() < size) {
+            throw new IllegalArgumentException("Field is " + field.getWidth() + "x" + field.getHeight() + ", expected " + size + "x" + size);
+        }
+        Board board = new Board(size, size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int index = board.index(row, col);
+                switch (FieldGrid.kind(field.get(row, col))) {
+                    case FieldGrid.EMPTY -> set(board.walkable, index);
+                    case FieldGrid.ASTEROID -> set(board.asteroids, index);
+                    case FieldGrid.ENEMY -> set(board.enemies, index);
+                    case FieldGrid.COIN -> {
+                        set(board.coins, index);
+                        set(board.walkable, index);
+                    }
+                    case FieldGrid.PLAYER -> {
+                        board.playerIndex = index;
+                        board.playerCount++;
+                    }
+                    // Unknown content blocks the cell
+                    default -> set(board.unknown, index);
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Independent copy for incremental updates; the lazily built asteroid cover is shared
+     * until the asteroids change.
+     */
+    Board copy() {
+        Board copy = new Board(width, height, words, inside, firstColumn, lastColumn);
+        System.arraycopy(asteroids, 0, copy.asteroids, 0, words);
+        System.arraycopy(enemies, 0, copy.enemies, 0, words);
+        System.arraycopy(coins, 0, copy.coins, 0, words);
+        System.arraycopy(walkable, 0, copy.walkable, 0, words);
+        System.arraycopy(unknown, 0, copy.unknown, 0, words);
+        copy.playerIndex = playerIndex;
+        copy.playerCount = playerCount;
+        copy.asteroidCover = asteroidCover;
+        return copy;
+    }
+
+    /**
+     * Replaces the content {@code oldCode} of one cell with {@code code} (both
+     * {@link FieldGrid} codes). The player index follows a player placed on the cell; it is
+     * only meaningful while {@link #getPlayerCount()} is 1.
+     */
+    void setCell(int index, byte oldCode, byte code) {
+        if (FieldGrid.kind(oldCode) == FieldGrid.PLAYER) {
+            playerCount--;
+        }
+        if (get(asteroids, index) || FieldGrid.kind(code) == FieldGrid.ASTEROID) {
+            asteroidCover = null;
+        }
+        clear(asteroids, index);
+        clear(enemies, index);
+        clear(coins, index);
+        clear(walkable, index);
+        clear(unknown, index);
+        switch (FieldGrid.kind(code)) {
+            case FieldGrid.EMPTY -> set(walkable, index);
+            case FieldGrid.ASTEROID -> set(asteroids, index);
+            case FieldGrid.ENEMY -> set(enemies, index);
+            case FieldGrid.COIN -> {
+                set(coins, index);
+                set(walkable, index);
+            }
+            case FieldGrid.PLAYER -> {
+                playerIndex = index;
+                playerCount++;
+            }
+            default -> set(unknown, index);
+        }
+    }
+
+    /**
+     * Number of player cells; with several, {@link #getPlayerIndex()} is the last one.
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int index(int row, int col) {
+        return row * width + col;
+    }
+
+    public int row(int index) {
+        return index / width;
+    }
+
+    public int col(int index) {
+        return index % width;
+    }
+
+    public boolean contains(int row, int col) {
+        return row >= 0 && row < height && col >= 0 && col < width;
+    }
+
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    public boolean isWalkable(int row, int col) {
+        return contains(row, col) && get(walkable, index(row, col));
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return isWalkable(row, col) && !get(coins, index(row, col));
+    }
+
+    public boolean isAsteroid(int row, int col) {
+        return contains(row, col) && get(asteroids, index(row, col));
+    }
+
+    public boolean isEnemy(int row, int col) {
+        return contains(row, col) && get(enemies, index(row, col));
+    }
+
+    public boolean isCoin(int row, int col) {
+        return contains(row, col) && get(coins, index(row, col));
+    }
+
+    public long[] getAsteroids() {
+        return asteroids;
+    }
+
+    public long[] getEnemies() {
+        return enemies;
+    }
+
+    public long[] getCoins() {
+        return coins;
+    }
+
+    public long[] getWalkable() {
+        return walkable;
+    }
+
+    /**
+     * Cells with content the parser does not recognise; they are treated as blocked.
+     */
+    public long[] getUnknown() {
+        return unknown;
+    }
+
+    /**
+     * Whether any of the eight cells around (row, col) holds an asteroid.
+     */
+    public boolean hasAdjacentAsteroid(int row, int col) {
+        long[] cover = asteroidCover;
+        if (cover == null) {
+            cover = neighbours(asteroids);
+            asteroidCover = cover;
+        }
+        return contains(row, col) && get(cover, index(row, col));
+    }
+
+    /**
+     * All cells in the 8-neighbourhood of any cell of {@code mask}, excluding the mask itself.
+     */
+    public long[] neighbours(long[] mask) {
+        long[] vertical = or(mask, or(shift(mask, Direction.NORTH), shift(mask, Direction.SOUTH)));
+        long[] result = or(vertical, or(shift(vertical, Direction.EAST), shift(vertical, Direction.WEST)));
+        return andNot(result, mask);
+    }
+
+    /**
+     * Moves every bit of {@code mask} one cell in {@code dir}; bits leaving the board are dropped.
+     */
+    public long[] shift(long[] mask, Direction dir) {
+        return switch (dir) {
+            case NORTH -> shiftDown(mask, width);
+            case SOUTH -> and(shiftUp(mask, width), inside);
+            case EAST -> andNot(and(shiftUp(mask, 1), inside), firstColumn);
+            case WEST -> andNot(shiftDown(mask, 1), lastColumn);
+        };
+    }
+
+    /**
+     * Cells hit by shots of every ship in {@code shooters} facing {@code dir}.
+     * A shot travels up to {@code range} cells and stops at the first cell that is not
+     * walkable (that cell is still hit).
+     */
+    public long[] fireLines(long[] shooters, Direction dir, int range) {
+        long[] hit = new long[words];
+        long[] front = shooters;
+        for (int i = 0; i < range; i++) {
+            front = shift(front, dir);
+            if (isZero(front)) {
+                break;
+            }
+            hit = or(hit, front);
+            front = and(front, walkable);
+        }
+        return hit;
+    }
+
+    /**
+     * Cells hit by a single ship at (row, col); same rules as {@link #fireLines}, walked cell
+     * by cell so that only the result is allocated.
+     */
+    public long[] fireLine(int row, int col, Direction dir, int range) {
+        long[] hit = new long[words];
+        markFireLine(hit, row, col, dir, range);
+        return hit;
+    }
+
+    /**
+     * Adds the cells of {@link #fireLine} to {@code hit} without allocating.
+     */
+    void markFireLine(long[] hit, int row, int col, Direction dir, int range) {
+        for (int i = 0; i < range; i++) {
+            row += dir.dx;
+            col += dir.dy;
+            if (!contains(row, col)) {
+                break;
+            }
+            int cell = index(row, col);
+            set(hit, cell);
+            if (!get(walkable, cell)) {
+                break;
+            }
+        }
+    }
+
+    public long[] single(int index) {
+        long[] mask = new long[words];
+        set(mask, index);
+        return mask;
+    }
+
+    public List<Position> positions(long[] mask) {
+        List<Position> positions = new ArrayList<>(bitCount(mask));
+        for (int i = nextSetBit(mask, 0); i >= 0; i = nextSetBit(mask, i + 1)) {
+            positions.add(new Position(row(i), col(i)));
+        }
+        return positions;
+    }
+
+    public boolean get(long[] mask, int row, int col) {
+        return contains(row, col) && get(mask, index(row, col));
+    }
+
+    public static boolean get(long[] mask, int index) {
+        return (mask[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static void set(long[] mask, int index) {
+        mask[index >>> 6] |= 1L << index;
+    }
+
+    static void clear(long[] mask, int index) {
+        mask[index >>> 6] &= ~(1L << index);
+    }
+
+    public static int nextSetBit(long[] mask, int from) {
+        int word = from >>> 6;
+        if (word >= mask.length) {
+            return -1;
+        }
+        long bits = mask[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == mask.length) {
+                return -1;
+            }
+            bits = mask[word];
+        }
+    }
+
+    public static int bitCount(long[] mask) {
+        int count = 0;
+        for (long word : mask) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public static boolean isZero(long[] mask) {
+        for (long word : mask) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static long[] and(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] & b[i];
+        }
+        return result;
+    }
+
+    public static long[] or(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] | b[i];
+        }
+        return result;
+    }
+
+    public static long[] andNot(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] & ~b[i];
+        }
+        return result;
+    }
+
+    // Towards higher cell indices
+    private static long[] shiftUp(long[] src, int n) {
+        long[] dst = new long[src.length];
+        int wordShift = n >>> 6;
+        int bitShift = n & 63;
+        for (int i = src.length - 1; i >= wordShift; i--) {
+            long value = src[i - wordShift] << bitShift;
+            if (bitShift != 0 && i - wordShift > 0) {
+                value |= src[i - wordShift - 1] >>> (64 - bitShift);
+            }
+            dst[i] = value;
+        }
+        return dst;
+    }
+
+    // Towards lower cell indices
+    private static long[] shiftDown(long[] src, int n) {
+        long[] dst = new long[src.length];
+        int wordShift = n >>> 6;
+        int bitShift = n & 63;
+        for (int i = 0; i + wordShift < src.length; i++) {
+            long value = src[i + wordShift] >>> bitShift;
+            if (bitShift != 0 && i + wordShift + 1 < src.length) {
+                value |= src[i + wordShift + 1] << (64 - bitShift);
+            }
+            dst[i] = value;
+        }
+        return dst;
+    }
+}
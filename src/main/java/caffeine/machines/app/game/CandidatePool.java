@@ -0,0 +1,156 @@
+package caffeine.machines.app.game;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Picks the highest-scoring of many move candidates, splitting large candidate sets across
+ * a work-stealing pool. The result never depends on how the work was split: the highest
+ * score wins and equal scores go to the lowest candidate index, exactly as in one
+ * sequential pass with a strict comparison.
+ * <p>
+ * {@code game.strategic.parallelism} of 0 uses one worker per core; with a single worker
+ * everything runs on the calling thread. Candidate sets smaller than
+ * {@code game.strategic.parallel-threshold} are never split.
+ */
+@Component
+public class CandidatePool implements AutoCloseable {
+    // Scoring takes 100-150 ns per candidate on a 100x100 board, so a thousand take about
+    // as long as the strategic tier on a standard field; splitting costs some 25 us of
+    // fork and wake-up overhead however few candidates there are
+    static final int DEFAULT_THRESHOLD = 1024;
+
+    private static final CandidatePool SEQUENTIAL = new CandidatePool(1, Integer.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    @Autowired
+    public CandidatePool(@Value("${game.strategic.parallelism:0}") int parallelism,
+                         @Value("${game.strategic.parallel-threshold:" + DEFAULT_THRESHOLD + "}") int threshold) {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = workers > 1 ? new ForkJoinPool(workers) : null;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Pool that always scores on the calling thread.
+     */
+    public static CandidatePool sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * Scores candidates {@code 0..count-1}. Returns the index of the best one scoring above
+     * {@code floor}, or -1 when none does. Scoring stops early once {@code stop} reports
+     * true; the result then only covers the candidates scored so far and says so.
+     */
+    public Pick best(int count, double floor, Scorer scorer, BooleanSupplier stop) {
+        if (pool == null || count < threshold) {
+            return scan(0, count, floor, scorer, stop);
+        }
+        int leaf = Math.max(1, Math.max(threshold / 4, count / (pool.getParallelism() * 4)));
+        return pool.invoke(new Split(0, count, leaf, floor, scorer, stop));
+    }
+
+    private static Pick scan(int from, int to, double floor, Scorer scorer, BooleanSupplier stop) {
+        int bestIndex = -1;
+        double bestScore = floor;
+        for (int i = from; i < to; i++) {
+            if (stop.getAsBoolean()) {
+                return new Pick(bestIndex, bestScore, true);
+            }
+            double score = scorer.score(i, bestScore);
+            if (score > bestScore) {
+                bestIndex = i;
+                bestScore = score;
+            }
+        }
+        return new Pick(bestIndex, bestScore, false);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Score of one candidate. {@code toBeat} is the best score seen so far in the same pass;
+     * a scorer may return any value not above it for a candidate that cannot beat it.
+     */
+    @FunctionalInterface
+    public interface Scorer {
+        double score(int candidate, double toBeat);
+    }
+
+    /**
+     * Outcome of {@link #best}: the winning index (-1 for none), its score, and whether
+     * scoring stopped before every candidate was seen.
+     */
+    public static final class Pick {
+        private final int index;
+        private final double score;
+        private final boolean stopped;
+
+        Pick(int index, double score, boolean stopped) {
+            this.index = index;
+            this.score = score;
+            this.stopped = stopped;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public boolean isStopped() {
+            return stopped;
+        }
+    }
+
+    private static final class Split extends RecursiveTask<Pick> {
+        private final int from;
+        private final int to;
+        private final int leaf;
+        private final double floor;
+        private final Scorer scorer;
+        private final BooleanSupplier stop;
+
+        Split(int from, int to, int leaf, double floor, Scorer scorer, BooleanSupplier stop) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.floor = floor;
+            this.scorer = scorer;
+            this.stop = stop;
+        }
+
+        @Override
+        protected Pick compute() {
+            if (to - from <= leaf) {
+                return scan(from, to, floor, scorer, stop);
+            }
+            int middle = (from + to) >>> 1;
+            Split upper = new Split(middle, to, leaf, floor, scorer, stop);
+            upper.fork();
+            Pick lower = new Split(from, middle, leaf, floor, scorer, stop).compute();
+            Pick higher = upper.join();
+            // Lower indices come first, so they keep equal scores
+            boolean stopped = lower.isStopped() || higher.isStopped();
+            Pick best = higher.getIndex() >= 0 && (lower.getIndex() < 0 || higher.getScore() > lower.getScore()) ? higher : lower;
+            return new Pick(best.getIndex(), best.getScore(), stopped);
+        }
+    }
+}
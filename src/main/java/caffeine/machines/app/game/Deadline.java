@@ -0,0 +1,71 @@
+package caffeine.machines.app.game;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which a move has to be ready, on the {@link System#nanoTime()} clock.
+ * A {@link #cancellable() cancellable} copy can also be expired early by whoever hands it out.
+ */
+public final class Deadline {
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE, false, false);
+
+    private final long nanos;
+    private final boolean bounded;
+    private final boolean cancellable;
+    private volatile boolean cancelled;
+
+    private Deadline(long nanos, boolean bounded, boolean cancellable) {
+        this.nanos = nanos;
+        this.bounded = bounded;
+        this.cancellable = cancellable;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), true, false);
+    }
+
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * Same point in time, but {@link #cancel()} expires the copy at once; this deadline
+     * is not affected.
+     */
+    public Deadline cancellable() {
+        return new Deadline(nanos, bounded, true);
+    }
+
+    /**
+     * Expires this deadline now. Only allowed on a {@link #cancellable()} copy, since plain
+     * deadlines may be shared.
+     */
+    public void cancel() {
+        if (!cancellable) {
+            throw new IllegalStateException("Deadline is not cancellable");
+        }
+        cancelled = true;
+    }
+
+    public boolean isExpired() {
+        return cancelled || bounded && System.nanoTime() - nanos >= 0;
+    }
+
+    /**
+     * Remaining time in nanoseconds, never negative; {@link Long#MAX_VALUE} when unbounded.
+     */
+    public long remainingNanos() {
+        if (cancelled) {
+            return 0;
+        }
+        return bounded ? Math.max(0, nanos - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * The earlier of this deadline and {@code budgetNanos} from now, as a nanoTime value.
+     */
+    public long capNanos(long budgetNanos) {
+        long now = System.nanoTime();
+        return now + Math.min(budgetNanos, remainingNanos());
+    }
+}
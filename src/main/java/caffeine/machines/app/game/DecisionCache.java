@@ -0,0 +1,81 @@
+package caffeine.machines.app.game;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decisions already taken for a board, shared by all games and request threads.
+ * Keys combine the field's {@link ZobristHash}, which covers ship facings, with the narrowing
+ * countdown, exact up to the planner's horizon; eviction is Caffeine's frequency-aware W-TinyLFU.
+ */
+@Component
+public class DecisionCache {
+    // The route planner sees every ring that closes within its horizon, and the move towards
+    // a target switches to it when the narrowing comes first; beyond the horizon the planner
+    // finds no route and every countdown decides alike
+    static final int NARROWING_BUCKETS = SpaceTimePlanner.DEFAULT_HORIZON + 1;
+
+    private final Cache<Long, CachedDecision> cache;
+    private final boolean enabled;
+
+    public DecisionCache(@Value("${game.cache.max-size:100000}") long maxSize) {
+        this.enabled = maxSize > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                .recordStats()
+                .build();
+    }
+
+    public static long key(TurnContext turn) {
+        int bucket = Math.max(0, Math.min(turn.getNarrowingIn(), NARROWING_BUCKETS));
+        return turn.getHash() ^ ZobristHash.narrowing(bucket);
+    }
+
+    public CachedDecision get(long key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(long key, CachedDecision decision) {
+        if (enabled) {
+            cache.put(key, decision);
+        }
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Outcome of the history-independent part of the heuristic chain.
+     * {@code strategic} marks a move that came from the strategic fallback, which the
+     * rotation-loop override may still replace.
+     */
+    public static final class CachedDecision {
+        final String move;
+        final boolean strategic;
+
+        CachedDecision(String move, boolean strategic) {
+            this.move = move;
+            this.strategic = strategic;
+        }
+
+        public String getMove() {
+            return move;
+        }
+
+        public boolean isStrategic() {
+            return strategic;
+        }
+    }
+}
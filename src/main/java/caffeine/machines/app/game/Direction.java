@@ -0,0 +1,89 @@
+package caffeine.machines.app.game;
+
+public enum Direction {
+    NORTH('N', -1, 0),
+    SOUTH('S', 1, 0),
+    EAST('E', 0, 1),
+    WEST('W', 0, -1);
+
+    private static final Direction[] VALUES = values();
+
+    public final int dx;
+    public final int dy;
+    public final char symbol;
+
+    Direction(char symbol, int dx, int dy) {
+        this.symbol = symbol;
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    public static Direction fromString(String s) {
+        if (s == null || s.isEmpty()) {
+            return null;  // Return null to handle with getDefaultDirection
+        }
+        return fromChars(s.toCharArray(), 0, s.length());
+    }
+
+    /**
+     * Same as {@link #fromString} on {@code chars[from, to)}: a contained direction name wins,
+     * otherwise the first contained symbol, case-insensitively; null when there is neither.
+     */
+    public static Direction fromChars(char[] chars, int from, int to) {
+        // First try to match the full name
+        for (Direction d : VALUES) {
+            if (containsIgnoreCase(chars, from, to, d.name())) {
+                return d;
+            }
+        }
+
+        // If no full name match, look for the direction symbol
+        for (Direction d : VALUES) {
+            for (int i = from; i < to; i++) {
+                if (Character.toUpperCase(chars[i]) == d.symbol) {
+                    return d;
+                }
+            }
+        }
+
+        return null;  // Return null to handle with getDefaultDirection
+    }
+
+    private static boolean containsIgnoreCase(char[] chars, int from, int to, String upperWord) {
+        int length = upperWord.length();
+        for (int start = from; start + length <= to; start++) {
+            int i = 0;
+            while (i < length && Character.toUpperCase(chars[start + i]) == upperWord.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Constants are not declared in clockwise order, so rotations are spelled out
+    public Direction turnLeft() {
+        return switch (this) {
+            case NORTH -> WEST;
+            case WEST -> SOUTH;
+            case SOUTH -> EAST;
+            case EAST -> NORTH;
+        };
+    }
+
+    public Direction turnRight() {
+        return switch (this) {
+            case NORTH -> EAST;
+            case EAST -> SOUTH;
+            case SOUTH -> WEST;
+            case WEST -> NORTH;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
@@ -0,0 +1,213 @@
+package caffeine.machines.app.game;
+
+import java.util.Arrays;
+
+/**
+ * Turn-exact distances from the player to every cell. A breadth-first search over
+ * (cell, facing) states, where moving forward and rotating each cost one turn, fills
+ * primitive distance and parent arrays that all target queries read from. The search
+ * runs lazily: a query only expands states until its answer can no longer change, so
+ * nearby targets on a large board cost a small part of the full search. A field that is
+ * no longer needed can hand its arrays to the next one; it is retired first, so a query
+ * still running on it, e.g. from a cancelled strategy, finishes before the arrays are
+ * reused, and later queries answer as if nothing were reachable. Queries are
+ * synchronized, since they may extend the search.
+ */
+public class DistanceField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final ThreadLocal<Steps> STEPS = ThreadLocal.withInitial(Steps::new);
+
+    private final Board board;
+    private final int startState;
+    private final int[] distance;
+    private final int[] parent;
+    // Discovered states in order of distance; states before head are expanded
+    private final int[] queue;
+    private int head;
+    private int tail;
+    private boolean retired;
+
+    public DistanceField(Board board, Position start, Direction facing) {
+        this(board, start, facing, null);
+    }
+
+    /**
+     * Same as the public constructor, but takes over the arrays of {@code recycled} when
+     * they fit; {@code recycled} must not be queried afterwards.
+     */
+    DistanceField(Board board, Position start, Direction facing, DistanceField recycled) {
+        this.board = board;
+        int states = board.getWidth() * board.getHeight() * 4;
+        boolean reuse = recycled != null && recycled.retire() == states;
+        this.distance = reuse ? recycled.distance : new int[states];
+        this.parent = reuse ? recycled.parent : new int[states];
+        this.queue = reuse ? recycled.queue : new int[states];
+        Arrays.fill(distance, UNREACHABLE);
+
+        this.startState = state(board.index(start.row, start.col), facing);
+        distance[startState] = 0;
+        parent[startState] = -1;
+        queue[tail++] = startState;
+    }
+
+    // Waits for a running query and returns the size of the arrays handed over
+    private synchronized int retire() {
+        retired = true;
+        return distance.length;
+    }
+
+    private void expandNext(int[] ahead, long[] walkable) {
+        int current = queue[head++];
+        int cell = current >>> 2;
+        Direction dir = DIRECTIONS[current & 3];
+        int next = distance[current] + 1;
+
+        int forward = ahead[current];
+        if (forward >= 0 && Board.get(walkable, forward)) {
+            visit(state(forward, dir), current, next);
+        }
+        visit(state(cell, dir.turnLeft()), current, next);
+        visit(state(cell, dir.turnRight()), current, next);
+    }
+
+    private void visit(int state, int from, int dist) {
+        if (distance[state] != UNREACHABLE) {
+            return;
+        }
+        distance[state] = dist;
+        parent[state] = from;
+        queue[tail++] = state;
+    }
+
+    /**
+     * Fewest turns (moves plus rotations) needed to stand on (row, col) with any facing.
+     */
+    public synchronized int getDistance(int row, int col) {
+        int best = bestState(row, col);
+        return best < 0 ? UNREACHABLE : distance[best];
+    }
+
+    public synchronized boolean isReachable(int row, int col) {
+        return bestState(row, col) >= 0;
+    }
+
+    /**
+     * First command ("M", "L" or "R") of a shortest route to (row, col), or null when the
+     * cell is unreachable or is the start cell.
+     */
+    public synchronized String getFirstMove(int row, int col) {
+        int state = bestState(row, col);
+        if (state < 0 || state == startState) {
+            return null;
+        }
+        while (parent[state] != startState) {
+            state = parent[state];
+        }
+        if ((state >>> 2) != (startState >>> 2)) {
+            return "M";
+        }
+        return DIRECTIONS[startState & 3].turnLeft() == DIRECTIONS[state & 3] ? "L" : "R";
+    }
+
+    /**
+     * Closest cell of {@code mask}, the lowest cell index among equally close ones, or -1
+     * when none is reachable. Stops searching once no closer cell can turn up.
+     */
+    public synchronized int nearest(long[] mask) {
+        if (retired) {
+            return -1;
+        }
+        int[] ahead = STEPS.get().ahead(board);
+        long[] walkable = board.getWalkable();
+        int best = -1;
+        int bestDistance = UNREACHABLE;
+        int i = 0;
+        while (true) {
+            if (i == tail) {
+                // Expanding a state discovers states one turn further away
+                if (head == tail || (best >= 0 && distance[queue[head]] >= bestDistance)) {
+                    return best;
+                }
+                expandNext(ahead, walkable);
+                continue;
+            }
+            int state = queue[i++];
+            if (distance[state] > bestDistance) {
+                return best;
+            }
+            int cell = state >>> 2;
+            if (Board.get(mask, cell) && (best < 0 || cell < best)) {
+                best = cell;
+                bestDistance = distance[state];
+            }
+        }
+    }
+
+    // Expands until every state as close as the cell's closest one is known
+    private int bestState(int row, int col) {
+        if (retired || !board.contains(row, col)) {
+            return -1;
+        }
+        int base = board.index(row, col) << 2;
+        int[] ahead = null;
+        long[] walkable = board.getWalkable();
+        int best = settledState(base);
+        while (best < 0 && head < tail) {
+            if (ahead == null) {
+                ahead = STEPS.get().ahead(board);
+            }
+            expandNext(ahead, walkable);
+            best = settledState(base);
+        }
+        if (best >= 0) {
+            while (head < tail && distance[queue[head]] < distance[best]) {
+                if (ahead == null) {
+                    ahead = STEPS.get().ahead(board);
+                }
+                expandNext(ahead, walkable);
+            }
+            best = settledState(base);
+        }
+        return best;
+    }
+
+    private int settledState(int base) {
+        int best = -1;
+        for (int i = 0; i < 4; i++) {
+            if (distance[base + i] != UNREACHABLE && (best < 0 || distance[base + i] < distance[best])) {
+                best = base + i;
+            }
+        }
+        return best;
+    }
+
+    private static int state(int cell, Direction dir) {
+        return (cell << 2) | dir.ordinal();
+    }
+
+    // Per-thread table of the cell ahead of every (cell, facing) state, -1 off the board;
+    // rebuilt only when the board size changes
+    private static final class Steps {
+        int width = -1;
+        int height = -1;
+        int[] ahead = new int[0];
+
+        int[] ahead(Board board) {
+            if (board.getWidth() != width || board.getHeight() != height) {
+                width = board.getWidth();
+                height = board.getHeight();
+                ahead = new int[width * height * 4];
+                for (int cell = 0; cell < width * height; cell++) {
+                    for (Direction dir : DIRECTIONS) {
+                        int row = board.row(cell) + dir.dx;
+                        int col = board.col(cell) + dir.dy;
+                        ahead[state(cell, dir)] = board.contains(row, col) ? board.index(row, col) : -1;
+                    }
+                }
+            }
+            return ahead;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package caffeine.machines.app.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The raw request field decoded to one byte per cell, row-major. The low bits hold the cell
+ * kind; ships additionally carry their facing (ordinal + 1, 0 when the request gave none).
+ * Decoding follows the string rules of the protocol: {@code ""} is empty, {@code "*"} an
+ * asteroid, anything else is identified by its first character, and a ship's facing is
+ * read from the rest of its text.
+ */
+public final class FieldGrid {
+    public static final byte EMPTY = 0;
+    public static final byte ASTEROID = 1;
+    public static final byte COIN = 2;
+    public static final byte UNKNOWN = 3;
+    public static final byte ENEMY = 4;
+    public static final byte PLAYER = 5;
+
+    private static final int KIND_MASK = 0x7;
+    private static final int DIRECTION_SHIFT = 3;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    /**
+     * Wraps {@code cells}, which may be longer than {@code width * height}; the grid takes
+     * ownership of the array.
+     */
+    public FieldGrid(int width, int height, byte[] cells) {
+        if (cells.length < width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " cells, got " + cells.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    public static FieldGrid of(List<List<String>> rows) {
+        int height = rows.size();
+        int width = height == 0 ? 0 : rows.get(0).size();
+        byte[] cells = new byte[width * height];
+        for (int row = 0; row < height; row++) {
+            List<String> line = rows.get(row);
+            if (line.size() != width) {
+                throw new IllegalArgumentException("Row " + row + " has " + line.size() + " cells, expected " + width);
+            }
+            for (int col = 0; col < width; col++) {
+                cells[row * width + col] = encode(line.get(col));
+            }
+        }
+        return new FieldGrid(width, height, cells);
+    }
+
+    /**
+     * Cell code of the text {@code chars[offset, offset + length)}.
+     */
+    public static byte encode(char[] chars, int offset, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        if (length == 1 && chars[offset] == '*') {
+            return ASTEROID;
+        }
+        return switch (chars[offset]) {
+            case 'A' -> ASTEROID;
+            case 'C' -> COIN;
+            case 'E' -> ship(ENEMY, Direction.fromChars(chars, offset + 1, offset + length));
+            case 'P' -> ship(PLAYER, Direction.fromChars(chars, offset + 1, offset + length));
+            default -> UNKNOWN;
+        };
+    }
+
+    private static byte ship(byte kind, Direction facing) {
+        return (byte) (kind | (facing == null ? 0 : facing.ordinal() + 1) << DIRECTION_SHIFT);
+    }
+
+    public static int kind(byte code) {
+        return code & KIND_MASK;
+    }
+
+    /**
+     * Facing encoded in a ship's code, or null when the request did not give one.
+     */
+    public static Direction direction(byte code) {
+        int facing = (code & 0xFF) >>> DIRECTION_SHIFT;
+        return facing == 0 ? null : DIRECTIONS[facing - 1];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public byte get(int row, int col) {
+        return cells[row * width + col];
+    }
+
+    public byte get(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Overwrites one cell. Grids are shared with the decision code, so only change a grid
+     * that no decision is currently reading.
+     */
+    public void set(int row, int col, byte code) {
+        if (row < 0 || row >= height || col < 0 || col >= width) {
+            throw new IndexOutOfBoundsException("Cell " + row + "," + col + " outside " + width + "x" + height);
+        }
+        cells[row * width + col] = code;
+    }
+
+    public static byte encode(String cell) {
+        return cell == null ? UNKNOWN : encode(cell.toCharArray(), 0, cell.length());
+    }
+
+    /**
+     * Canonical protocol text of a cell, e.g. {@code "EN"} or {@code "*"}. Unknown content is
+     * rendered as {@code "?"}.
+     */
+    public static String text(byte code) {
+        Direction facing = direction(code);
+        return switch (kind(code)) {
+            case EMPTY -> "";
+            case ASTEROID -> "*";
+            case COIN -> "C";
+            case ENEMY -> facing == null ? "E" : "E" + facing.symbol;
+            case PLAYER -> facing == null ? "P" : "P" + facing.symbol;
+            default -> "?";
+        };
+    }
+
+    public List<List<String>> toRows() {
+        List<List<String>> rows = new ArrayList<>(height);
+        for (int row = 0; row < height; row++) {
+            List<String> line = new ArrayList<>(width);
+            for (int col = 0; col < width; col++) {
+                line.add(text(get(row, col)));
+            }
+            rows.add(line);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,21 @@
+package caffeine.machines.app.game;
+
+/**
+ * Constants of the game shared by the move heuristics and the lookahead search.
+ */
+public final class GameRules {
+    public static final int FIRE_RANGE = 4;
+    public static final int NARROWING_INTERVAL = 20;
+    // Side of the standard arena; decisions take the size from the request's field
+    public static final int FIELD_SIZE = 13;
+    // Largest side that replay segments and turn-channel messages are sized for
+    public static final int MAX_FIELD_SIZE = 128;
+
+    public static final double SURVIVAL_SCORE = 10.0;
+    public static final double COIN_SCORE = 20.0;
+    public static final double KILL_SCORE = 40.0;
+    public static final double NARROWING_SCORE = 10.0;
+
+    private GameRules() {
+    }
+}
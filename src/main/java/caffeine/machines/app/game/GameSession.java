@@ -0,0 +1,66 @@
+package caffeine.machines.app.game;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Mutable state that has to survive between turns of a single game.
+ * Requests for the same game are expected to arrive one after another, callers
+ * synchronize on the session to be safe when they do not.
+ */
+public class GameSession {
+    private final int gameId;
+    private final Deque<String> lastMoves = new ArrayDeque<>();
+    private int fireActionCounter = 1;
+    private TurnContext lastTurn;
+    private byte[] lastCells;
+    private volatile long lastAccessNanos;
+
+    public GameSession(int gameId, long nowNanos) {
+        this.gameId = gameId;
+        this.lastAccessNanos = nowNanos;
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+
+    public Deque<String> getLastMoves() {
+        return lastMoves;
+    }
+
+    public int getFireActionCounter() {
+        return fireActionCounter;
+    }
+
+    public void incrementFireActionCounter() {
+        fireActionCounter++;
+    }
+
+    /**
+     * Analysis of the last evaluated turn, the base for the next turn's incremental update.
+     */
+    TurnContext getLastTurn() {
+        return lastTurn;
+    }
+
+    /**
+     * Cell codes {@link #getLastTurn()} was built from, see {@link TurnContext#cells}.
+     */
+    byte[] getLastCells() {
+        return lastCells;
+    }
+
+    void rememberTurn(TurnContext turn, byte[] cells) {
+        this.lastTurn = turn;
+        this.lastCells = cells;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    void touch(long nowNanos) {
+        this.lastAccessNanos = nowNanos;
+    }
+}
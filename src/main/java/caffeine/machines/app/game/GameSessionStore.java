@@ -0,0 +1,86 @@
+package caffeine.machines.app.game;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrent per-game session registry keyed by {@code gameId}.
+ * Lookups are a single hash map access; idle sessions are swept lazily while new
+ * games are registered, and the least recently used game is dropped once the
+ * store is full.
+ */
+@Component
+public class GameSessionStore {
+    private final Map<Integer, GameSession> sessions = new ConcurrentHashMap<>();
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong lastSweepNanos;
+
+    @Autowired
+    public GameSessionStore(@Value("${game.sessions.max-size:1024}") int maxSessions,
+                            @Value("${game.sessions.idle-timeout:10m}") Duration idleTimeout) {
+        this(maxSessions, idleTimeout, System::nanoTime);
+    }
+
+    public GameSessionStore(int maxSessions, Duration idleTimeout, LongSupplier nanoClock) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be positive: " + maxSessions);
+        }
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.nanoClock = nanoClock;
+        this.lastSweepNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public GameSession getOrCreate(int gameId) {
+        long now = nanoClock.getAsLong();
+        GameSession session = sessions.get(gameId);
+        if (session == null) {
+            evictIfNeeded(now);
+            session = sessions.computeIfAbsent(gameId, id -> new GameSession(id, now));
+        }
+        session.touch(now);
+        return session;
+    }
+
+    public GameSession get(int gameId) {
+        return sessions.get(gameId);
+    }
+
+    public void remove(int gameId) {
+        sessions.remove(gameId);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void evictIfNeeded(long now) {
+        long lastSweep = lastSweepNanos.get();
+        if (now - lastSweep >= idleTimeoutNanos / 2 && lastSweepNanos.compareAndSet(lastSweep, now)) {
+            sessions.values().removeIf(s -> now - s.getLastAccessNanos() >= idleTimeoutNanos);
+        }
+
+        // Only reached when a new game arrives while the store is full
+        while (sessions.size() >= maxSessions) {
+            GameSession oldest = null;
+            for (GameSession s : sessions.values()) {
+                if (oldest == null || s.getLastAccessNanos() < oldest.getLastAccessNanos()) {
+                    oldest = s;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            sessions.remove(oldest.getGameId(), oldest);
+        }
+    }
+}
@@ -0,0 +1,807 @@
+package caffeine.machines.app.game;
+
+import caffeine.machines.app.game.MoveMetrics.Branch;
+import caffeine.machines.app.game.MoveMetrics.Phase;
+import caffeine.machines.app.game.MoveStrategy.Proposal;
+import caffeine.machines.app.search.LookaheadSearch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+import static caffeine.machines.app.game.GameRules.*;
+
+/**
+ * Heuristic move selection for a single turn. A new instance is created per request,
+ * so the raw field is never shared between concurrent games; history that must outlive
+ * the turn is kept in the game's {@link GameSession}. The emergency, coin and positioning
+ * tiers are {@link MoveStrategy strategies} that a {@link StrategyPortfolio} arbitrates,
+ * together with any strategies registered there.
+ */
+public class MoveCalculator {
+    private static final Logger log = LoggerFactory.getLogger(MoveCalculator.class);
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private final FieldGrid grid;
+    private final GameSession session;
+    private final Deque<String> lastMoves;
+    private final LookaheadSearch search;
+    private final DecisionCache cache;
+    private final MoveMetrics metrics;
+    private final CandidatePool candidates;
+    private final StrategyPortfolio portfolio;
+    private final PatternTable patterns;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private TurnContext turn;
+    private SpaceTimePlanner planner;
+    private Deadline deadline = Deadline.none();
+    private boolean emergencyOnly;
+
+    public MoveCalculator(List<List<String>> rawField, GameSession session) {
+        this(FieldGrid.of(rawField), session, null, null, null);
+    }
+
+    public MoveCalculator(FieldGrid grid, GameSession session) {
+        this(grid, session, null, null, null);
+    }
+
+    public MoveCalculator(List<List<String>> rawField, GameSession session, LookaheadSearch search, DecisionCache cache) {
+        this(FieldGrid.of(rawField), session, search, cache, null);
+    }
+
+    public MoveCalculator(FieldGrid grid, GameSession session, LookaheadSearch search, DecisionCache cache,
+                          MoveMetrics metrics) {
+        this(grid, session, search, cache, metrics, null);
+    }
+
+    /**
+     * {@code candidates} scores the strategic candidates, possibly in parallel; null scores
+     * them on the calling thread.
+     */
+    public MoveCalculator(FieldGrid grid, GameSession session, LookaheadSearch search, DecisionCache cache,
+                          MoveMetrics metrics, CandidatePool candidates) {
+        this(grid, session, search, cache, metrics, candidates, null);
+    }
+
+    /**
+     * {@code portfolio} picks between the tiers and its own strategies, possibly racing
+     * them; null tries the tiers in order on the calling thread.
+     */
+    public MoveCalculator(FieldGrid grid, GameSession session, LookaheadSearch search, DecisionCache cache,
+                          MoveMetrics metrics, CandidatePool candidates, StrategyPortfolio portfolio) {
+        this(grid, session, search, cache, metrics, candidates, portfolio, null);
+    }
+
+    /**
+     * {@code patterns} answers the local emergency checks for known neighbourhoods; null
+     * always works them out.
+     */
+    public MoveCalculator(FieldGrid grid, GameSession session, LookaheadSearch search, DecisionCache cache,
+                          MoveMetrics metrics, CandidatePool candidates, StrategyPortfolio portfolio,
+                          PatternTable patterns) {
+        this.grid = grid;
+        this.session = session;
+        this.lastMoves = session.getLastMoves();
+        this.search = search;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.candidates = candidates != null ? candidates : CandidatePool.sequential();
+        this.portfolio = portfolio != null ? portfolio : StrategyPortfolio.sequential();
+        this.patterns = patterns != null ? patterns : PatternTable.disabled();
+    }
+
+    // Only works out the local emergency checks of an already analysed turn
+    private MoveCalculator(TurnContext turn) {
+        this(null, new GameSession(0, 0), null, null, null, null, null, null);
+        this.turn = turn;
+    }
+
+    /**
+     * The emergency tier's answer from the player's neighbourhood alone, i.e. without the
+     * narrowing check, or null when the tier would pass; what {@link PatternTable} stores.
+     */
+    static String localEmergencyMove(TurnContext turn) {
+        return new MoveCalculator(turn).localEmergency(turn.getBoard(), turn.getPlayer(), turn.getPlayerDirection());
+    }
+
+    public String calculateMove(int narrowingIn) {
+        return calculateMove(narrowingIn, Deadline.none(), false);
+    }
+
+    /**
+     * Tiered evaluation: an emergency-only answer is always available, the coin, strategic
+     * and search tiers only run while {@code deadline} has not passed. With
+     * {@code emergencyOnly} the expensive tiers are skipped altogether.
+     */
+    public String calculateMove(int narrowingIn, Deadline deadline, boolean emergencyOnly) {
+        this.deadline = deadline;
+        this.emergencyOnly = emergencyOnly;
+        long start = System.nanoTime();
+        turn = analyse(narrowingIn);
+        record(Phase.PARSE, start);
+        Board field = turn.getBoard();
+        Position playerPos = turn.getPlayer();
+        Direction playerDir = turn.getPlayerDirection();
+
+        try {
+            return calculateBestMove(field, playerPos, playerDir, narrowingIn);
+        } finally {
+            turn.releaseLargeTables();
+        }
+    }
+
+    // Builds on the previous turn of this game when only a few cells changed
+    private TurnContext analyse(int narrowingIn) {
+        int size = fieldSize();
+        TurnContext previous = session.getLastTurn();
+        TurnContext next = previous != null
+                ? TurnContext.update(previous, session.getLastCells(), grid, size, narrowingIn) : null;
+        if (next == null) {
+            next = TurnContext.parse(grid, size, narrowingIn);
+        }
+        session.rememberTurn(next, TurnContext.cells(grid, size, session.getLastCells()));
+        return next;
+    }
+
+    // The arena is square; its side comes with every request
+    private int fieldSize() {
+        if (grid.getWidth() != grid.getHeight() || grid.getWidth() == 0) {
+            throw new IllegalArgumentException("Field must be square, got " + grid.getWidth() + "x" + grid.getHeight());
+        }
+        return grid.getWidth();
+    }
+
+    /**
+     * Time spent in each {@link Phase} by the last {@code calculateMove}, by ordinal; zero for
+     * phases that did not run.
+     */
+    public long[] getPhaseNanos() {
+        return phaseNanos;
+    }
+
+    /**
+     * Runs only the strategic scoring on a freshly parsed field; the session history is
+     * left untouched. Exposed for the benchmarks.
+     */
+    String calculateStrategicMove(int narrowingIn) {
+        turn = TurnContext.parse(grid, fieldSize(), narrowingIn);
+        return calculateStrategicMove(turn.getBoard(), turn.getPlayer(), turn.getPlayerDirection(), narrowingIn,
+                Deadline.none()).getMove();
+    }
+
+    private String calculateBestMove(Board field, Position playerPos, Direction playerDir, int narrowingIn) {
+        if (log.isDebugEnabled()) {
+            log.debug("Calculating best move: player={} facing={} narrowingIn={}", playerPos, playerDir, narrowingIn);
+        }
+
+        // Track last few moves to detect loops
+        if (lastMoves.size() > 4) {
+            lastMoves.removeFirst();
+        }
+
+        // Check for rotation loop
+        if (lastMoves.size() >= 4) {
+            if (onlyRotations()) {
+                log.debug("Detected rotation loop, forcing forward movement");
+                if (canMoveForward(field, playerPos, playerDir)) {
+                    lastMoves.clear();
+                    count(Branch.ROTATION_LOOP);
+                    return "M";
+                }
+            }
+        }
+
+        // Same board, facing and narrowing phase as an earlier decision: skip evaluation
+        long cacheKey = cache != null ? DecisionCache.key(turn) : 0;
+        DecisionCache.CachedDecision cached = cache != null ? cache.get(cacheKey) : null;
+        if (cached != null) {
+            if (cached.isStrategic() && shouldBreakRotation(field, playerPos, playerDir)) {
+                lastMoves.clear();
+                count(Branch.ROTATION_LOOP);
+                return "M";
+            }
+            count(Branch.CACHED);
+            lastMoves.add(cached.getMove());
+            return cached.getMove();
+        }
+
+        // Out of time or shedding load: answer from the cheap tier and don't cache it
+        if (emergencyOnly || deadline.isExpired()) {
+            long phaseStart = System.nanoTime();
+            String emergencyMove = handleEmergency(field, playerPos, playerDir, narrowingIn);
+            record(Phase.EMERGENCY, phaseStart);
+            return degraded(field, playerPos, playerDir, emergencyMove);
+        }
+
+        MoveStrategy[] tiers = {new EmergencyTier(), new CoinTier(), new PositioningTier()};
+        StrategyPortfolio.Winner winner = portfolio.decide(tiers, turn, deadline);
+        if (winner == null) {
+            // Nothing proposed before the deadline
+            return degraded(field, playerPos, playerDir, null);
+        }
+
+        // Nothing urgent and no coin in reach: if we have been rotating, move on instead
+        MoveStrategy strategy = winner.getStrategy();
+        boolean strategic = strategy.getPriority() < MoveStrategy.COIN_PRIORITY;
+        if (strategic && shouldBreakRotation(field, playerPos, playerDir)) {
+            lastMoves.clear();
+            count(Branch.ROTATION_LOOP);
+            return "M";
+        }
+
+        count(strategy instanceof Tier tier ? tier.branch : Branch.REGISTERED);
+        String move = refine(winner.getProposal().getMove());
+        if (winner.getProposal().isComplete()) {
+            remember(cacheKey, move, strategic);
+        }
+        lastMoves.add(move);
+        return move;
+    }
+
+    private String degraded(Board field, Position playerPos, Direction playerDir, String emergencyMove) {
+        String move = emergencyMove != null ? emergencyMove : (canMoveForward(field, playerPos, playerDir) ? "M" : "R");
+        count(Branch.DEGRADED);
+        lastMoves.add(move);
+        return move;
+    }
+
+    private boolean shouldBreakRotation(Board field, Position playerPos, Direction playerDir) {
+        return lastMoves.size() >= 2 && onlyRotations() && canMoveForward(field, playerPos, playerDir);
+    }
+
+    private boolean onlyRotations() {
+        for (String move : lastMoves) {
+            if (!move.equals("L") && !move.equals("R")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tiers may run on several threads at once
+    private synchronized SpaceTimePlanner planner() {
+        if (planner == null) {
+            planner = new SpaceTimePlanner(turn, SpaceTimePlanner.DEFAULT_HORIZON);
+        }
+        return planner;
+    }
+
+    private void record(Phase phase, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        phaseNanos[phase.ordinal()] = elapsed;
+        if (metrics != null) {
+            metrics.record(phase, elapsed);
+        }
+    }
+
+    private void count(Branch branch) {
+        if (metrics != null) {
+            metrics.count(branch);
+        }
+    }
+
+    private void remember(long cacheKey, String move, boolean strategic) {
+        if (cache != null) {
+            cache.put(cacheKey, new DecisionCache.CachedDecision(move, strategic));
+        }
+    }
+
+    // Lets the lookahead search overrule the heuristic when it sees a better line
+    private String refine(String heuristicMove) {
+        if (search == null || deadline.isExpired()) {
+            return heuristicMove;
+        }
+        return search.findBestMove(turn, heuristicMove, deadline.capNanos(search.getBudgetNanos()),
+                session.getFireActionCounter());
+    }
+
+    private boolean canMoveForward(Board field, Position pos, Direction dir) {
+        return field.isWalkable(pos.row + dir.dx, pos.col + dir.dy);
+    }
+
+    private Position findAccessibleCoin(Board field, Position playerPos, Direction playerDir, List<Position> coins) {
+        // One traversal answers every coin, stopping at the closest; distances include rotations
+        int coin = turn.getDistanceField().nearest(field.getCoins());
+        return coin < 0 ? null : new Position(field.row(coin), field.col(coin));
+    }
+
+
+    private String handleEmergency(Board field, Position playerPos, Direction playerDir, int narrowingIn) {
+        // Check if we're in immediate danger from narrowing
+        if (isInNarrowingDanger(playerPos, narrowingIn)) {
+            // A route that stays ahead of the closing rings and off fire lines on the way
+            SpaceTimePlanner.Route route = planner().planToSafety();
+            if (route != null) {
+                if (route.getFirstMove() != null) {
+                    return route.getFirstMove();
+                }
+            } else {
+                Position safePos = findSafePosition(field, narrowingIn);
+                if (safePos != null) {
+                    return getMovementCommand(field, playerPos, playerDir, safePos);
+                }
+            }
+        }
+
+        return localEmergency(field, playerPos, playerDir);
+    }
+
+    // Collision and fire-line escapes only look a few cells around the player, so a
+    // precomputed answer stands in for them when the neighbourhood is known
+    private String localEmergency(Board field, Position playerPos, Direction playerDir) {
+        int known = patterns.lookup(turn);
+        if (known != PatternTable.MISS) {
+            return PatternTable.move(known);
+        }
+
+        // Check for immediate collision danger
+        if (isInCollisionDanger(field, playerPos, playerDir)) {
+            return calculateEvasiveMove(field, playerPos, playerDir);
+        }
+
+        // Check if we're in enemy's firing line
+        if (isInEnemyFireLine(field, playerPos)) {
+            return calculateDodgeMove(field, playerPos, playerDir);
+        }
+
+        return null;
+    }
+
+    private String calculateDodgeMove(Board field, Position playerPos, Direction playerDir) {
+        // Safest available move, the first one on ties; forward when none is available
+        String best = "M";
+        double bestSafety = Double.NEGATIVE_INFINITY;
+
+        // 1. Try moving forward
+        int forwardRow = playerPos.row + playerDir.dx;
+        int forwardCol = playerPos.col + playerDir.dy;
+        if (field.isWalkable(forwardRow, forwardCol)) {
+            bestSafety = evaluateDodgePosition(forwardRow, forwardCol);
+        }
+
+        // 2. Try rotating left
+        Direction leftDir = playerDir.turnLeft();
+        if (field.isWalkable(playerPos.row + leftDir.dx, playerPos.col + leftDir.dy)) {
+            double leftSafety = evaluateDodgePosition(playerPos.row, playerPos.col) * 0.9; // Slight penalty for rotation
+            if (leftSafety > bestSafety) {
+                best = "L";
+                bestSafety = leftSafety;
+            }
+        }
+
+        // 3. Try rotating right
+        Direction rightDir = playerDir.turnRight();
+        if (field.isWalkable(playerPos.row + rightDir.dx, playerPos.col + rightDir.dy)) {
+            double rightSafety = evaluateDodgePosition(playerPos.row, playerPos.col) * 0.9; // Slight penalty for rotation
+            if (rightSafety > bestSafety) {
+                best = "R";
+            }
+        }
+        return best;
+    }
+
+    private double evaluateDodgePosition(int row, int col) {
+        ThreatMap threats = turn.getThreatMap(FIRE_RANGE);
+
+        // Heavy penalty for every enemy that still has us in its firing line
+        double safety = Math.pow(0.2, threats.getDanger(row, col));
+
+        List<Position> enemies = threats.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            // Smaller penalty for being close to an enemy that can't hit us
+            if (!threats.canEnemyHit(i, row, col) && distance(row, col, enemies.get(i)) < 3) {
+                safety *= 0.7;
+            }
+        }
+
+        // Bonus for positions near cover (asteroids)
+        if (threats.hasCover(row, col)) {
+            safety *= 1.2;
+        }
+
+        // Penalty for being close to walls
+        if (threats.getWallDistance(row, col) <= 1) {
+            safety *= 0.8;
+        }
+
+        return safety;
+    }
+
+    private boolean isInEnemyFireLine(Board field, Position playerPos) {
+        // Check if any enemy can hit us
+        return turn.getThreatMap(FIRE_RANGE).getDanger(playerPos.row, playerPos.col) > 0;
+    }
+
+    private Proposal calculateStrategicMove(Board field, Position playerPos, Direction playerDir, int narrowingIn,
+                                            Deadline deadline) {
+        // Highest score wins, the first candidate on ties; only the winner's move is worked
+        // out, which on large boards saves a route search per candidate
+        String basicMove = "L";
+        double bestScore = 0.5; // Base score for rotating
+
+        // Always consider basic moves with base scores
+        if (canMoveForward(field, playerPos, playerDir)) {
+            basicMove = "M";
+            bestScore = 1.0; // Base score for moving
+        }
+
+        // Crowded boards score their candidates on several threads, so the lazily built
+        // tables the scorers read are built here first
+        turn.getThreatMap(FIRE_RANGE).hasCover(playerPos.row, playerPos.col);
+
+        // Evaluate coin collection with higher priority
+        List<Position> coins = turn.getCoins();
+        CandidatePool.Pick coin = candidates.best(coins.size(), bestScore,
+                (i, toBeat) -> scoreCoin(field, playerPos, coins.get(i), narrowingIn, toBeat), NEVER);
+        bestScore = coin.getScore();
+
+        // Evaluate strategic positioning; attack positioning is the expensive part, so keep
+        // what we have when time runs out
+        List<Position> enemies = turn.getEnemies();
+        CandidatePool.Pick enemy = candidates.best(enemies.size(), bestScore,
+                (i, toBeat) -> evaluatePositioning(field, playerPos, enemies.get(i), narrowingIn), deadline::isExpired);
+        boolean complete = !enemy.isStopped();
+
+        if (enemy.getIndex() >= 0) {
+            Position target = enemies.get(enemy.getIndex());
+            String move = getOptimalPositioningMove(field, playerPos, playerDir, target);
+            log.debug("Option {} for enemy at {}", move, target);
+            return new Proposal(move, enemy.getScore(), complete);
+        }
+        if (coin.getIndex() >= 0) {
+            Position target = coins.get(coin.getIndex());
+            String move = getMovementCommand(field, playerPos, playerDir, target);
+            log.debug("Option {} for coin at {}", move, target);
+            return new Proposal(move, coin.getScore(), complete);
+        }
+        return new Proposal(basicMove, bestScore, complete);
+    }
+
+    private double scoreCoin(Board field, Position playerPos, Position coin, int narrowingIn, double toBeat) {
+        // Penalties only lower a coin's score; skip the path check when it cannot win
+        double reach = COIN_SCORE / Math.sqrt(playerPos.distanceTo(coin) + 1) * 2.0;
+        if (reach <= toBeat) {
+            return reach;
+        }
+        return evaluateCoinMove(field, playerPos, coin, narrowingIn) * 2.0; // Increased priority for coins
+    }
+
+
+    private double evaluateCoinMove(Board field, Position playerPos, Position coin, int narrowingIn) {
+        double score = COIN_SCORE;
+        double distance = playerPos.distanceTo(coin);
+
+        // Increased base score and reduced distance penalty
+        score = score / Math.sqrt(distance + 1);  // Using sqrt for less aggressive distance penalty
+
+        // Less aggressive penalties
+        if (isInNarrowingDanger(coin, narrowingIn)) {
+            score *= 0.8; // Was 0.5
+        }
+
+        if (isPathDangerous(field, playerPos, coin)) {
+            score *= 0.5; // Was 0.3
+        }
+
+        return score;
+    }
+
+    private boolean isPathDangerous(Board field, Position from, Position to) {
+        // Check if path crosses any enemy firing lines
+        return pathCrossesFireLine(from, to, turn.getThreatMap(FIRE_RANGE));
+    }
+
+    private boolean pathCrossesFireLine(Position from, Position to, ThreatMap threats) {
+        int steps = (int) from.distanceTo(to);
+        int row = from.row;
+        int col = from.col;
+
+        // Diagonal steps towards the target first, then straight
+        for (int i = 0; i <= steps; i++) {
+            if (threats.getDanger(row, col) > 0) {
+                return true;
+            }
+            row += Integer.compare(to.row - row, 0);
+            col += Integer.compare(to.col - col, 0);
+        }
+
+        return false;
+    }
+
+    private static double distance(int row, int col, Position other) {
+        int dRow = row - other.row;
+        int dCol = col - other.col;
+        return Math.sqrt(dRow * dRow + dCol * dCol);
+    }
+
+    private double evaluatePositioning(Board field, Position playerPos, Position enemy, int narrowingIn) {
+        double score = KILL_SCORE;
+
+        // Calculate ideal attack distance (just within firing range)
+        double distance = playerPos.distanceTo(enemy);
+        double idealDistance = FIRE_RANGE - 1;
+
+        // Penalize positions too close or too far from ideal
+        score *= 1.0 / (1 + Math.abs(distance - idealDistance));
+
+        // Penalize positions in narrowing zone
+        if (isInNarrowingDanger(playerPos, narrowingIn)) {
+            score *= 0.3;
+        }
+
+        // Bonus for positions near cover
+        if (hasNearbyAsteroid(field, playerPos)) {
+            score *= 1.2;
+        }
+
+        return score;
+    }
+
+    private String getOptimalPositioningMove(Board field, Position playerPos, Direction playerDir, Position enemy) {
+        // Find best position for attack
+        int idealCell = findIdealAttackCell(field, playerPos, enemy);
+        if (idealCell >= 0) {
+            return getMovementCommand(field, playerPos, playerDir, field.row(idealCell), field.col(idealCell));
+        }
+
+        // If no ideal position, try to get closer while staying safe
+        return getMovementCommand(field, playerPos, playerDir, enemy.row, enemy.col);
+    }
+
+    private int findIdealAttackCell(Board field, Position playerPos, Position enemy) {
+        // Try to find a position that's:
+        // 1. Within firing range
+        // 2. Has cover nearby
+        // 3. Not in enemy's firing line
+        // 4. Closest to current position (to minimize movement)
+
+        int bestCell = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int searchRadius = FIRE_RANGE;
+        ThreatMap threats = turn.getThreatMap(FIRE_RANGE);
+
+        for (int r = -searchRadius; r <= searchRadius; r++) {
+            for (int c = -searchRadius; c <= searchRadius; c++) {
+                int row = enemy.row + r;
+                int col = enemy.col + c;
+
+                // Check all conditions
+                if (field.isWalkable(row, col) && distance(row, col, enemy) < FIRE_RANGE && threats.hasCover(row, col) && threats.getDanger(row, col) == 0) {
+
+                    // Calculate distance from current position
+                    double distanceFromCurrent = distance(row, col, playerPos);
+
+                    // Update best position if this is closer to current position
+                    if (distanceFromCurrent < bestDistance) {
+                        bestDistance = distanceFromCurrent;
+                        bestCell = field.index(row, col);
+                    }
+                }
+            }
+        }
+
+        return bestCell;
+    }
+
+    private boolean hasNearbyAsteroid(Board field, Position pos) {
+        return turn.getThreatMap(FIRE_RANGE).hasCover(pos.row, pos.col);
+    }
+
+    private boolean isInNarrowingDanger(Position pos, int narrowingIn) {
+        int dangerZone = 2; // Buffer for safety
+        int size = turn.getBoard().getWidth();
+        return narrowingIn <= dangerZone && (pos.row <= narrowingIn || pos.row >= size - narrowingIn || pos.col <= narrowingIn || pos.col >= size - narrowingIn);
+    }
+
+    private Position findSafePosition(Board field, int narrowingIn) {
+        int center = field.getWidth() / 2;
+        int safeRadius = Math.max(2, field.getWidth() / 2 - narrowingIn - 1);
+
+        // Search in expanding squares from center; inner squares were already checked, so
+        // only the ring r cells are new, visited in row-major order
+        for (int r = 0; r <= safeRadius; r++) {
+            for (int dx = -r; dx <= r; dx++) {
+                int step = dx == -r || dx == r ? 1 : Math.max(1, 2 * r);
+                for (int dy = -r; dy <= r; dy += step) {
+                    if (field.isEmpty(center + dx, center + dy)) {
+                        return new Position(center + dx, center + dy);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isInCollisionDanger(Board field, Position pos, Direction dir) {
+        List<Position> enemies = turn.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            Position enemy = enemies.get(i);
+            if (willCollide(pos, dir, enemy, turn.getEnemyDirection(enemy))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean willCollide(Position pos1, Direction dir1, Position pos2, Direction dir2) {
+        int row1 = pos1.row + dir1.dx;
+        int col1 = pos1.col + dir1.dy;
+        int row2 = pos2.row + dir2.dx;
+        int col2 = pos2.col + dir2.dy;
+        return (row1 == row2 && col1 == col2) || (row1 == pos2.row && col1 == pos2.col) || (row2 == pos1.row && col2 == pos1.col);
+    }
+
+    private String calculateEvasiveMove(Board field, Position pos, Direction dir) {
+        // Safest of forward and turning, the first one on ties
+        String best = "L";
+        double bestSafety = evaluateSafety(pos.row, pos.col);
+
+        // Evaluate moving forward
+        int forwardRow = pos.row + dir.dx;
+        int forwardCol = pos.col + dir.dy;
+        if (field.isWalkable(forwardRow, forwardCol)) {
+            double forwardSafety = evaluateSafety(forwardRow, forwardCol);
+            if (forwardSafety >= bestSafety) {
+                best = "M";
+            }
+        }
+        return best;
+    }
+
+    private double evaluateSafety(int row, int col) {
+        double safety = 1.0;
+
+        // Reduce safety for nearby enemies
+        List<Position> enemies = turn.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            if (distance(row, col, enemies.get(i)) < 3) {
+                safety *= 0.5;
+            }
+        }
+
+        // Reduce safety for being near walls
+        if (turn.getThreatMap(FIRE_RANGE).getWallDistance(row, col) <= 1) {
+            safety *= 0.7;
+        }
+
+        return safety;
+    }
+
+    private String getMovementCommand(Board field, Position from, Direction currentDir, Position to) {
+        return getMovementCommand(field, from, currentDir, to.row, to.col);
+    }
+
+    private String getMovementCommand(Board field, Position from, Direction currentDir, int toRow, int toCol) {
+        if (log.isTraceEnabled()) {
+            log.trace("Getting movement command from {} to ({},{}), current direction: {}", from, toRow, toCol, currentDir);
+        }
+
+        // Follow the shortest route when the target can be reached from the player's cell
+        if (from.equals(turn.getPlayer()) && currentDir == turn.getPlayerDirection()) {
+            // The static route would still be under way when the next ring closes
+            int distance = turn.getDistanceField().getDistance(toRow, toCol);
+            if (distance != DistanceField.UNREACHABLE && distance >= turn.getNarrowingIn()) {
+                SpaceTimePlanner.Route route = planner().planTo(new Position(toRow, toCol));
+                if (route != null && route.getFirstMove() != null) {
+                    return route.getFirstMove();
+                }
+            }
+            String routed = turn.getDistanceField().getFirstMove(toRow, toCol);
+            if (routed != null) {
+                return routed;
+            }
+        }
+
+        Direction targetDir = getTargetDirection(from, toRow, toCol);
+        log.trace("Target direction: {}", targetDir);
+
+        // If we're facing the right direction and can move, do it
+        if (currentDir == targetDir && field.isWalkable(from.row + currentDir.dx, from.col + currentDir.dy)) {
+            return "M";
+        }
+
+        // Determine shortest rotation, turning right when the target is behind us
+        return currentDir.turnLeft() == targetDir ? "L" : "R";
+    }
+
+    private Direction getTargetDirection(Position from, int toRow, int toCol) {
+        int dx = toRow - from.row;
+        int dy = toCol - from.col;
+
+        // Use primary direction (larger delta)
+        if (Math.abs(dx) > Math.abs(dy)) {
+            return dx > 0 ? Direction.SOUTH : Direction.NORTH;
+        } else if (Math.abs(dy) > Math.abs(dx)) {
+            return dy > 0 ? Direction.EAST : Direction.WEST;
+        } else {
+            // If deltas are equal, prefer current direction if it works
+            if (dx > 0) return Direction.SOUTH;
+            if (dx < 0) return Direction.NORTH;
+            if (dy > 0) return Direction.EAST;
+            return Direction.WEST;
+        }
+    }
+
+    /**
+     * A tier of this calculator as a strategy. Tiers work on the calculator's turn, which
+     * is the turn the portfolio hands them.
+     */
+    private abstract static class Tier implements MoveStrategy {
+        private final String name;
+        private final int priority;
+        private final Branch branch;
+
+        Tier(String name, int priority, Branch branch) {
+            this.name = name;
+            this.priority = priority;
+            this.branch = branch;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+    }
+
+    private final class EmergencyTier extends Tier {
+        EmergencyTier() {
+            super("emergency", EMERGENCY_PRIORITY, Branch.EMERGENCY);
+        }
+
+        @Override
+        public Proposal propose(TurnContext turn, Deadline deadline) {
+            long phaseStart = System.nanoTime();
+            String move = handleEmergency(turn.getBoard(), turn.getPlayer(), turn.getPlayerDirection(), turn.getNarrowingIn());
+            record(Phase.EMERGENCY, phaseStart);
+            // Every escape is as good as any other
+            return move != null ? new Proposal(move, 0) : null;
+        }
+    }
+
+    private final class CoinTier extends Tier {
+        CoinTier() {
+            super("coin", COIN_PRIORITY, Branch.COIN);
+        }
+
+        @Override
+        public Proposal propose(TurnContext turn, Deadline deadline) {
+            // Look for coins with direct path
+            List<Position> coins = turn.getCoins();
+            if (coins.isEmpty()) {
+                return null;
+            }
+            long phaseStart = System.nanoTime();
+            Board field = turn.getBoard();
+            Position nearestCoin = findAccessibleCoin(field, turn.getPlayer(), turn.getPlayerDirection(), coins);
+            record(Phase.COIN_SEARCH, phaseStart);
+            if (nearestCoin == null) {
+                return null;
+            }
+            int distance = turn.getDistanceField().getDistance(nearestCoin.row, nearestCoin.col);
+            return new Proposal(getMovementCommand(field, turn.getPlayer(), turn.getPlayerDirection(), nearestCoin),
+                    (double) COIN_SCORE / (distance + 1));
+        }
+    }
+
+    private final class PositioningTier extends Tier {
+        PositioningTier() {
+            super("positioning", POSITIONING_PRIORITY, Branch.STRATEGIC);
+        }
+
+        @Override
+        public Proposal propose(TurnContext turn, Deadline deadline) {
+            // Default to strategic movement
+            long phaseStart = System.nanoTime();
+            Proposal proposal = calculateStrategicMove(turn.getBoard(), turn.getPlayer(), turn.getPlayerDirection(),
+                    turn.getNarrowingIn(), deadline);
+            record(Phase.STRATEGIC, phaseStart);
+            return proposal;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package caffeine.machines.app.game;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase timers and branch counters of the move decision, published as {@code move.phase}
+ * (tag {@code phase}) and {@code move.branch} (tag {@code branch}). All meters are registered
+ * up front, so recording is an array lookup and never touches the registry.
+ */
+@Component
+public class MoveMetrics {
+
+    public enum Phase {
+        DESERIALIZE, PARSE, EMERGENCY, COIN_SEARCH, STRATEGIC
+    }
+
+    /**
+     * Which part of the decision produced the move; {@code REGISTERED} is a strategy
+     * registered with the {@link StrategyPortfolio}.
+     */
+    public enum Branch {
+        ROTATION_LOOP, CACHED, DEGRADED, EMERGENCY, COIN, STRATEGIC, REGISTERED, FIRE, FALLBACK
+    }
+
+    private final Timer[] phases = new Timer[Phase.values().length];
+    private final Counter[] branches = new Counter[Branch.values().length];
+
+    public MoveMetrics(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phases[phase.ordinal()] = Timer.builder("move.phase")
+                    .tag("phase", tagValue(phase))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (Branch branch : Branch.values()) {
+            branches[branch.ordinal()] = Counter.builder("move.branch")
+                    .tag("branch", tagValue(branch))
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Metrics kept in a private registry, for use outside the application context.
+     */
+    public static MoveMetrics standalone() {
+        return new MoveMetrics(new SimpleMeterRegistry());
+    }
+
+    public void record(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void count(Branch branch) {
+        branches[branch.ordinal()].increment();
+    }
+
+    public Timer getTimer(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    public double getCount(Branch branch) {
+        return branches[branch.ordinal()].count();
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,121 @@
+package caffeine.machines.app.game;
+
+import caffeine.machines.app.replay.ReplayRecorder;
+import caffeine.machines.app.search.LookaheadSearch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Turn decision for one game: fires every second turn and otherwise asks a fresh
+ * {@link MoveCalculator}. Used by the REST controller and by the offline simulator.
+ */
+@Service
+public class MoveService {
+    private static final Logger log = LoggerFactory.getLogger(MoveService.class);
+    private static final String FIRE_ACTION = "F";
+    private static final String GAME_ID = "gameId";
+
+    private final LookaheadSearch search;
+    private final DecisionCache cache;
+    private final MoveMetrics metrics;
+    private final ReplayRecorder recorder;
+    private final CandidatePool candidates;
+    private final StrategyPortfolio portfolio;
+    private final PatternTable patterns;
+
+    @Autowired
+    public MoveService(LookaheadSearch search, DecisionCache cache, MoveMetrics metrics, ReplayRecorder recorder,
+                       CandidatePool candidates, StrategyPortfolio portfolio, PatternTable patterns) {
+        this.search = search;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.recorder = recorder;
+        this.candidates = candidates;
+        this.portfolio = portfolio;
+        this.patterns = patterns;
+    }
+
+    public MoveService(LookaheadSearch search, DecisionCache cache, MoveMetrics metrics, ReplayRecorder recorder) {
+        this(search, cache, metrics, recorder, CandidatePool.sequential(), StrategyPortfolio.sequential(),
+                PatternTable.disabled());
+    }
+
+    public MoveService(LookaheadSearch search, DecisionCache cache) {
+        this(search, cache, MoveMetrics.standalone(), ReplayRecorder.disabled());
+    }
+
+    public MoveMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String decide(List<List<String>> field, int narrowingIn, GameSession session) {
+        return decide(FieldGrid.of(field), narrowingIn, session, Deadline.none(), false);
+    }
+
+    public String decide(FieldGrid field, int narrowingIn, GameSession session) {
+        return decide(field, narrowingIn, session, Deadline.none(), false);
+    }
+
+    public String decide(List<List<String>> field, int narrowingIn, GameSession session, Deadline deadline, boolean emergencyOnly) {
+        return decide(FieldGrid.of(field), narrowingIn, session, deadline, emergencyOnly);
+    }
+
+    /**
+     * Decides within {@code deadline}; {@code emergencyOnly} skips everything but the cheap tier.
+     */
+    public String decide(FieldGrid field, int narrowingIn, GameSession session, Deadline deadline, boolean emergencyOnly) {
+        // Lets the logging configuration single out one game
+        MDC.put(GAME_ID, String.valueOf(session.getGameId()));
+        try {
+            long start = System.nanoTime();
+            synchronized (session) {
+                //Shoot every second time
+                if (session.getFireActionCounter() % 2 == 0) {
+                    session.incrementFireActionCounter();
+                    metrics.count(MoveMetrics.Branch.FIRE);
+                    log.debug("Shooting! Counter value: {}", session.getFireActionCounter());
+                    recorder.record(session.getGameId(), narrowingIn, field, FIRE_ACTION, System.nanoTime() - start, null);
+                    return FIRE_ACTION;
+                }
+
+                log.debug("Received game state: narrowingIn={}", narrowingIn);
+                if (log.isTraceEnabled()) {
+                    log.trace("Field state:\n{}", renderField(field));
+                }
+
+                MoveCalculator calculator = new MoveCalculator(field, session, search, cache, metrics, candidates, portfolio,
+                        patterns);
+                String move = calculator.calculateMove(narrowingIn, deadline, emergencyOnly);
+                // Recorded under the session lock so turns of a game reach the log in order
+                recorder.record(session.getGameId(), narrowingIn, field, move, System.nanoTime() - start, calculator.getPhaseNanos());
+
+                log.debug("Calculated move: {}", move);
+                session.incrementFireActionCounter();    //increment to shoot next time
+                return move;
+            }
+        } finally {
+            MDC.remove(GAME_ID);
+        }
+    }
+
+    static String renderField(FieldGrid field) {
+        StringBuilder out = new StringBuilder(field.getWidth() * field.getHeight() * 6);
+        for (int row = 0; row < field.getHeight(); row++) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                String cell = FieldGrid.text(field.get(row, col));
+                String display = cell.isEmpty() ? "_" : cell.equals("*") ? "A" : cell;
+                out.append(display);
+                for (int pad = display.length(); pad < 6; pad++) {
+                    out.append(' ');
+                }
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package caffeine.machines.app.game;
+
+/**
+ * One way of choosing a move for a turn. Every strategy of a {@link StrategyPortfolio}
+ * looks at the same turn and may propose a move; the proposal of the highest priority
+ * wins, and proposals of equal priority compare by score.
+ * <p>
+ * The built-in strategies, in priority order, are the emergency tier (narrowing, collision
+ * and fire-line escapes), the coin tier and strategic positioning. Strategies registered
+ * as beans join them without changes to the calculator or the controller.
+ */
+public interface MoveStrategy {
+    int EMERGENCY_PRIORITY = 300;
+    int COIN_PRIORITY = 200;
+    int POSITIONING_PRIORITY = 100;
+
+    /**
+     * Name used in logs.
+     */
+    String getName();
+
+    /**
+     * Rank of this strategy's proposals: a proposal outranks every proposal of a lower
+     * priority, whatever the scores.
+     */
+    int getPriority();
+
+    /**
+     * Move for {@code turn}, or null when the strategy has nothing to propose. May run
+     * on its own thread next to the other strategies of the turn, and should give up soon
+     * after {@code deadline} expires; the deadline is also expired early once the answer
+     * is no longer needed. Virtual threads are not preempted, so a strategy that waits
+     * should block or sleep rather than spin.
+     */
+    Proposal propose(TurnContext turn, Deadline deadline);
+
+    /**
+     * A proposed move with its score. A proposal that is not {@code complete} was cut
+     * short by the deadline and is not cached.
+     */
+    final class Proposal {
+        private final String move;
+        private final double score;
+        private final boolean complete;
+
+        public Proposal(String move, double score) {
+            this(move, score, true);
+        }
+
+        public Proposal(String move, double score, boolean complete) {
+            this.move = move;
+            this.score = score;
+            this.complete = complete;
+        }
+
+        public String getMove() {
+            return move;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package caffeine.machines.app.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static caffeine.machines.app.game.GameRules.FIRE_RANGE;
+
+/**
+ * Precomputed answers of the emergency tier's collision and fire-line checks, which only
+ * look at the player's neighbourhood: every cell within {@link #RADIUS} (the fire range
+ * plus the step forward) with its content and ship facings. A neighbourhood is keyed in the
+ * player's frame, so the four facings share one key, and a pattern and its mirror image
+ * share a slot. The tie-breaks favour turning left, so the two mirror images keep separate
+ * answers within the slot.
+ * <p>
+ * The table is generated offline by {@link caffeine.machines.app.sim.PatternTableGenerator}
+ * and memory-mapped from {@code game.patterns.file} (disabled when empty). File layout: magic
+ * and version, slot count (a power of two) and entry count as ints, then one long key per
+ * slot (0 for a free slot, linear probing from the key's low bits), then one answer byte per
+ * slot with the plain answer in the low and the mirrored one in the high nibble.
+ */
+@Component
+public class PatternTable {
+    private static final Logger log = LoggerFactory.getLogger(PatternTable.class);
+
+    public static final int RADIUS = FIRE_RANGE + 1;
+
+    /**
+     * Answer codes: not in the table, the tier passes, or the tier's move.
+     */
+    public static final int MISS = 0;
+    public static final int PASS = 1;
+    private static final String[] MOVES = {null, null, "M", "L", "R"};
+
+    static final int MAGIC = 0x4C504154; // "LPAT"
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private static final int SIDE = 2 * RADIUS + 1;
+    // Cell contents; walkable cells and the player's own cell add nothing to the key
+    private static final int OUTSIDE = 0;
+    private static final int ASTEROID = 1;
+    private static final int BLOCKED = 2;
+    private static final int ENEMY = 3;
+    private static final int KINDS = 7;
+    private static final long[] KEYS = new long[SIDE * SIDE * KINDS];
+    // Start of every key, so that an open neighbourhood does not hash to the free-slot marker
+    private static final long EMPTY = ZobristHash.key(SIDE * SIDE * KINDS, 0);
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = ZobristHash.key(i / KINDS, i % KINDS);
+        }
+    }
+
+    private static final PatternTable DISABLED = new PatternTable((ByteBuffer) null);
+    private static final ThreadLocal<Neighbourhood> NEIGHBOURHOOD = ThreadLocal.withInitial(Neighbourhood::new);
+
+    private final ByteBuffer table;
+    private final int mask;
+    private final int answersOffset;
+
+    @Autowired
+    public PatternTable(@Value("${game.patterns.file:}") String file) {
+        this(file.isBlank() ? null : map(Path.of(file)));
+        if (table != null) {
+            log.info("Loaded {} local patterns from {}", table.getInt(12), file);
+        }
+    }
+
+    private PatternTable(ByteBuffer table) {
+        this.table = table;
+        int slots = table != null ? table.getInt(8) : 0;
+        this.mask = slots - 1;
+        this.answersOffset = HEADER_SIZE + slots * Long.BYTES;
+    }
+
+    public static PatternTable disabled() {
+        return DISABLED;
+    }
+
+    public static PatternTable load(Path file) {
+        return new PatternTable(map(file));
+    }
+
+    private static ByteBuffer map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (table.limit() < HEADER_SIZE || table.getInt(0) != MAGIC || table.getInt(4) != VERSION) {
+                throw new IOException("Not a pattern table of version " + VERSION + ": " + file);
+            }
+            int slots = table.getInt(8);
+            if (Integer.bitCount(slots) != 1 || table.limit() != HEADER_SIZE + (long) slots * (Long.BYTES + 1)) {
+                throw new IOException("Truncated pattern table: " + file);
+            }
+            return table;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load pattern table " + file, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return table != null;
+    }
+
+    /**
+     * Answer code for the player's neighbourhood in {@code turn}; {@link #MISS} when the
+     * table is disabled or does not know the pattern.
+     */
+    public int lookup(TurnContext turn) {
+        if (table == null) {
+            return MISS;
+        }
+        Neighbourhood neighbourhood = NEIGHBOURHOOD.get().hash(turn);
+        long key = neighbourhood.key;
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            long stored = table.getLong(HEADER_SIZE + slot * Long.BYTES);
+            if (stored == 0) {
+                return MISS;
+            }
+            if (stored == key) {
+                int answers = table.get(answersOffset + slot);
+                return neighbourhood.mirrored ? answers >>> 4 & 15 : answers & 15;
+            }
+        }
+    }
+
+    /**
+     * The move of an answer code other than {@link #MISS}; null for {@link #PASS}.
+     */
+    public static String move(int answer) {
+        return MOVES[answer];
+    }
+
+    static int answer(String move) {
+        return move == null ? PASS : switch (move) {
+            case "M" -> 2;
+            case "L" -> 3;
+            default -> 4;
+        };
+    }
+
+    // 0 ahead, 1 right, 2 back, 3 left
+    private static int facing(Direction enemy, Direction forward) {
+        if (enemy == forward) {
+            return 0;
+        }
+        if (enemy == forward.turnRight()) {
+            return 1;
+        }
+        return enemy == forward.turnLeft() ? 3 : 2;
+    }
+
+    /**
+     * Key of the player's neighbourhood, reused for every turn a thread looks up.
+     */
+    private static final class Neighbourhood {
+        // The smaller of the two hashes, shared by a pattern and its mirror image
+        long key;
+        // Whether the key is the mirror image's hash, whose answer is kept in the high nibble
+        boolean mirrored;
+
+        // Hashes the neighbourhood in the player's frame, rows running forward and columns to
+        // the right; the mirror image runs its columns to the left. Both come from one pass.
+        Neighbourhood hash(TurnContext turn) {
+            Board board = turn.getBoard();
+            Position player = turn.getPlayer();
+            Direction forward = turn.getPlayerDirection();
+            Direction right = forward.turnRight();
+            long plainHash = EMPTY;
+            long mirroredHash = EMPTY;
+            for (int ahead = -RADIUS; ahead <= RADIUS; ahead++) {
+                for (int side = -RADIUS; side <= RADIUS; side++) {
+                    int row = player.row + ahead * forward.dx + side * right.dx;
+                    int col = player.col + ahead * forward.dy + side * right.dy;
+                    int kind;
+                    int mirroredKind;
+                    if (!board.contains(row, col)) {
+                        kind = mirroredKind = OUTSIDE;
+                    } else if ((ahead == 0 && side == 0) || board.isWalkable(row, col)) {
+                        continue;
+                    } else if (board.isAsteroid(row, col)) {
+                        kind = mirroredKind = ASTEROID;
+                    } else if (board.isEnemy(row, col)) {
+                        int facing = facing(turn.getEnemyDirection(row, col), forward);
+                        kind = ENEMY + facing;
+                        // Right and left swap places in the mirror image
+                        mirroredKind = ENEMY + (4 - facing) % 4;
+                    } else {
+                        kind = mirroredKind = BLOCKED;
+                    }
+                    int rowOffset = (ahead + RADIUS) * SIDE;
+                    plainHash ^= KEYS[(rowOffset + side + RADIUS) * KINDS + kind];
+                    mirroredHash ^= KEYS[(rowOffset - side + RADIUS) * KINDS + mirroredKind];
+                }
+            }
+            key = Math.min(plainHash, mirroredHash);
+            mirrored = plainHash > mirroredHash;
+            return this;
+        }
+    }
+
+    /**
+     * Collects the answers of observed neighbourhoods and writes the most frequent ones as
+     * a table file.
+     */
+    public static final class Builder {
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Neighbourhood neighbourhood = new Neighbourhood();
+        private int conflicts;
+
+        /**
+         * Adds the neighbourhood of the player in {@code turn} with the answer the emergency
+         * tier gives for it.
+         */
+        public void add(TurnContext turn) {
+            long key = neighbourhood.hash(turn).key;
+            if (key == 0) {
+                return;
+            }
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+            entry.count++;
+            int variant = neighbourhood.mirrored ? 1 : 0;
+            int answer = answer(MoveCalculator.localEmergencyMove(turn));
+            if (entry.answers[variant] == MISS) {
+                entry.answers[variant] = answer;
+            } else if (entry.answers[variant] != answer) {
+                // Two neighbourhoods with one key but different answers; neither is trusted
+                entry.conflicting = true;
+                conflicts++;
+            }
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        public int getConflicts() {
+            return conflicts;
+        }
+
+        /**
+         * Writes at most {@code maxEntries} patterns, the most frequently seen first, and
+         * returns how many were written.
+         */
+        public int write(Path file, int maxEntries) throws IOException {
+            List<Map.Entry<Long, Entry>> kept = new ArrayList<>();
+            for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+                if (!entry.getValue().conflicting) {
+                    kept.add(entry);
+                }
+            }
+            kept.sort((a, b) -> Integer.compare(b.getValue().count, a.getValue().count));
+            int count = Math.min(kept.size(), maxEntries);
+            // At most half full, so probes stay short
+            int slots = Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1;
+
+            ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + slots * (Long.BYTES + 1));
+            out.putInt(MAGIC).putInt(VERSION).putInt(slots).putInt(count);
+            int answersOffset = HEADER_SIZE + slots * Long.BYTES;
+            for (int i = 0; i < count; i++) {
+                long key = kept.get(i).getKey();
+                int[] answers = kept.get(i).getValue().answers;
+                int slot = (int) key & (slots - 1);
+                while (out.getLong(HEADER_SIZE + slot * Long.BYTES) != 0) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                out.putLong(HEADER_SIZE + slot * Long.BYTES, key);
+                out.put(answersOffset + slot, (byte) (answers[0] | answers[1] << 4));
+            }
+            out.rewind();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+            return count;
+        }
+
+        private static final class Entry {
+            private final int[] answers = new int[2];
+            private int count;
+            private boolean conflicting;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package caffeine.machines.app.game;
+
+import java.util.Objects;
+
+public class Position {
+    public final int row;
+    public final int col;
+
+    public Position(int row, int col) {
+        this.row = row;
+        this.col = col;
+    }
+
+    public Position move(Direction dir) {
+        return new Position(row + dir.dx, col + dir.dy);
+    }
+
+    public double distanceTo(Position other) {
+        return Math.sqrt(Math.pow(row - other.row, 2) + Math.pow(col - other.col, 2));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Position)) return false;
+        Position pos = (Position) o;
+        return row == pos.row && col == pos.col;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(row, col);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(%d,%d)", row, col);
+    }
+}
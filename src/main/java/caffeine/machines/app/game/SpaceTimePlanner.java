@@ -0,0 +1,387 @@
+package caffeine.machines.app.game;
+
+import java.util.Arrays;
+
+import static caffeine.machines.app.game.GameRules.*;
+
+/**
+ * Time-expanded route planning: A* over (cell, facing, turn) states up to a fixed horizon,
+ * where moving forward and rotating each take one turn. Unlike {@link DistanceField} the
+ * obstacles depend on the turn a cell is entered:
+ * <ul>
+ *     <li>rings closed by the narrowing schedule (the same model as the lookahead search:
+ *     one more ring every {@link GameRules#NARROWING_INTERVAL} turns once the countdown
+ *     runs out) are blocked from the turn they close;</li>
+ *     <li>cells on an enemy's current fire line are blocked on every turn;</li>
+ *     <li>cells an enemy could cover after a single rotation cost extra from the second
+ *     turn on, when that rotation could have happened.</li>
+ * </ul>
+ * Obstacles only ever grow with time, so reaching a (cell, facing) earlier and at no higher
+ * cost dominates every later visit: each pair is expanded once, which keeps the search
+ * close to the size of the static one. Only cells within the horizon of the player can be
+ * reached, so the search works on that window of the board and its cost does not grow
+ * with the board size. Search state lives in a per-thread arena of primitive arrays that
+ * is reused across turns; a generation stamp replaces clearing the open and closed sets.
+ */
+public class SpaceTimePlanner {
+    public static final int DEFAULT_HORIZON = 2 * FIELD_SIZE;
+
+    // Extra turns charged for entering a cell an enemy could aim at after turning once
+    private static final int ROTATED_FIRE_PENALTY = 2;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final ThreadLocal<Arena> ARENA = ThreadLocal.withInitial(Arena::new);
+
+    private final Board board;
+    private final int horizon;
+    private final int startCell;
+    private final Direction startFacing;
+    private final int firstNarrowing;
+    private final int closedRings;
+    private final long[] fireLines;
+    private final long[] rotatedFireLines;
+
+    // Cells within the horizon of the player, clipped to the board
+    private final int top;
+    private final int left;
+    private final int windowWidth;
+    private final int windowHeight;
+
+    public SpaceTimePlanner(TurnContext turn, int horizon) {
+        this.board = turn.getBoard();
+        this.horizon = horizon;
+        this.startCell = board.getPlayerIndex();
+        this.startFacing = turn.getPlayerDirection();
+        this.firstNarrowing = Math.max(1, turn.getNarrowingIn());
+        this.closedRings = countClosedRings(board);
+
+        int startRow = board.row(startCell);
+        int startCol = board.col(startCell);
+        this.top = Math.max(0, startRow - horizon);
+        this.left = Math.max(0, startCol - horizon);
+        this.windowHeight = Math.min(board.getHeight() - 1, startRow + horizon) - top + 1;
+        this.windowWidth = Math.min(board.getWidth() - 1, startCol + horizon) - left + 1;
+
+        // Enemies further away cannot reach the window with a shot
+        int reach = horizon + FIRE_RANGE;
+        this.fireLines = new long[board.getAsteroids().length];
+        this.rotatedFireLines = new long[fireLines.length];
+        for (int i = 0; i < turn.getEnemies().size(); i++) {
+            Position enemy = turn.getEnemies().get(i);
+            if (Math.abs(enemy.row - startRow) > reach || Math.abs(enemy.col - startCol) > reach) {
+                continue;
+            }
+            Direction facing = turn.getEnemyDirection(enemy);
+            board.markFireLine(fireLines, enemy.row, enemy.col, facing, FIRE_RANGE);
+            board.markFireLine(rotatedFireLines, enemy.row, enemy.col, facing.turnLeft(), FIRE_RANGE);
+            board.markFireLine(rotatedFireLines, enemy.row, enemy.col, facing.turnRight(), FIRE_RANGE);
+        }
+    }
+
+    /**
+     * Cheapest route that stands on {@code target} within the horizon, or null when every
+     * route is cut off by the narrowing or by fire lines.
+     */
+    public Route planTo(Position target) {
+        if (!inWindow(target.row, target.col)) {
+            return null;
+        }
+        Arena arena = ARENA.get();
+        arena.prepare(windowWidth * windowHeight);
+        for (int local = 0; local < arena.cells; local++) {
+            arena.heuristic[local] = Math.abs(top + local / windowWidth - target.row)
+                    + Math.abs(left + local % windowWidth - target.col);
+        }
+        return search(arena, local(target.row, target.col));
+    }
+
+    /**
+     * Cheapest route to a cell off every enemy's current fire line that is still open after
+     * the next narrowing following the arrival, or null when there is none within the
+     * horizon. A route without moves means the player already stands on such a cell.
+     */
+    public Route planToSafety() {
+        Arena arena = ARENA.get();
+        arena.prepare(windowWidth * windowHeight);
+        // Every turn changes the wall distance by at most one
+        int depth = closedRingsAt(firstNarrowing);
+        for (int local = 0; local < arena.cells; local++) {
+            arena.heuristic[local] = Math.max(0, depth - wallDistance(global(local)));
+        }
+        return search(arena, -1);
+    }
+
+    /**
+     * Number of closed outer rings after {@code turns} more turns.
+     */
+    public int closedRingsAt(int turns) {
+        if (turns < firstNarrowing) {
+            return closedRings;
+        }
+        return closedRings + 1 + (turns - firstNarrowing) / NARROWING_INTERVAL;
+    }
+
+    /**
+     * Whether (row, col) can be entered on turn {@code turns}, ignoring fire-line costs.
+     */
+    public boolean isOpen(int row, int col, int turns) {
+        return board.contains(row, col) && isOpen(board.index(row, col), turns);
+    }
+
+    private boolean isOpen(int cell, int turns) {
+        return wallDistance(cell) >= closedRingsAt(turns) && !Board.get(fireLines, cell);
+    }
+
+    // Off fire lines and still open after the next narrowing following the arrival
+    private boolean isSafe(int cell, int turns) {
+        return wallDistance(cell) >= closedRingsAt(Math.max(turns, firstNarrowing)) && !Board.get(fireLines, cell);
+    }
+
+    // Goal and arena cells are window-local; obstacle checks use board cells
+    private Route search(Arena arena, int goal) {
+        int startLocal = local(board.row(startCell), board.col(startCell));
+        arena.open(pair(startLocal, startFacing), 0, -1, 0, arena.heuristic[startLocal]);
+
+        while (arena.size > 0) {
+            int entry = arena.pop();
+            // Ties pop the earliest turn first, so the first visit of a pair is the best one
+            int pair = arena.entryPair[entry];
+            if (arena.closed[pair] == arena.generation) {
+                continue;
+            }
+            arena.closed[pair] = arena.generation;
+            int turns = arena.entryTurn[entry];
+            int local = pair >>> 2;
+            Direction facing = DIRECTIONS[pair & 3];
+
+            if (goal >= 0 ? local == goal : isSafe(global(local), turns)) {
+                return arena.route(this, entry);
+            }
+            if (turns == horizon) {
+                continue;
+            }
+
+            int next = turns + 1;
+            int row = top + local / windowWidth + facing.dx;
+            int col = left + local % windowWidth + facing.dy;
+            if (inWindow(row, col) && (board.isWalkable(row, col) || board.index(row, col) == startCell)) {
+                expand(arena, entry, local(row, col), facing, next);
+            }
+            expand(arena, entry, local, facing.turnLeft(), next);
+            expand(arena, entry, local, facing.turnRight(), next);
+        }
+        return null;
+    }
+
+    private void expand(Arena arena, int from, int local, Direction facing, int turns) {
+        int cell = global(local);
+        if (!isOpen(cell, turns)) {
+            return;
+        }
+        int cost = arena.entryCost[from] + 1;
+        if (turns >= 2 && Board.get(rotatedFireLines, cell)) {
+            cost += ROTATED_FIRE_PENALTY;
+        }
+        int pair = pair(local, facing);
+        // Skip visits dominated by an earlier, no more expensive one
+        if (arena.closed[pair] == arena.generation
+                || (arena.seen[pair] == arena.generation && arena.bestTurn[pair] <= turns && arena.bestCost[pair] <= cost)) {
+            return;
+        }
+        arena.open(pair, turns, from, cost, cost + arena.heuristic[local]);
+    }
+
+    private static int pair(int local, Direction facing) {
+        return (local << 2) | facing.ordinal();
+    }
+
+    private boolean inWindow(int row, int col) {
+        return row >= top && row < top + windowHeight && col >= left && col < left + windowWidth;
+    }
+
+    private int local(int row, int col) {
+        return (row - top) * windowWidth + col - left;
+    }
+
+    private int global(int local) {
+        return board.index(top + local / windowWidth, left + local % windowWidth);
+    }
+
+    private int wallDistance(int cell) {
+        int row = board.row(cell);
+        int col = board.col(cell);
+        return Math.min(Math.min(row, board.getHeight() - 1 - row), Math.min(col, board.getWidth() - 1 - col));
+    }
+
+    // Outer rings without a single walkable or player cell, walking each ring's perimeter
+    private static int countClosedRings(Board board) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        int maxRings = (Math.min(width, height) + 1) / 2;
+        for (int ring = 0; ring < maxRings; ring++) {
+            int bottom = height - 1 - ring;
+            int right = width - 1 - ring;
+            for (int col = ring; col <= right; col++) {
+                if (isOccupiable(board, ring, col) || isOccupiable(board, bottom, col)) {
+                    return ring;
+                }
+            }
+            for (int row = ring + 1; row < bottom; row++) {
+                if (isOccupiable(board, row, ring) || isOccupiable(board, row, right)) {
+                    return ring;
+                }
+            }
+        }
+        return maxRings;
+    }
+
+    private static boolean isOccupiable(Board board, int row, int col) {
+        return board.isWalkable(row, col) || board.index(row, col) == board.getPlayerIndex();
+    }
+
+    /**
+     * A planned route: its commands and the cell it ends on.
+     */
+    public static final class Route {
+        private final String moves;
+        private final Position target;
+
+        Route(String moves, Position target) {
+            this.moves = moves;
+            this.target = target;
+        }
+
+        /**
+         * First command ("M", "L" or "R"), or null when the route has no moves.
+         */
+        public String getFirstMove() {
+            return moves.isEmpty() ? null : moves.substring(0, 1);
+        }
+
+        /**
+         * All commands in order, e.g. {@code "MMRM"}; one turn each.
+         */
+        public String getMoves() {
+            return moves;
+        }
+
+        public Position getTarget() {
+            return target;
+        }
+    }
+
+    // Primitive open and closed sets over window-local (cell, facing) pairs, grown on demand
+    // and never cleared. Every pushed visit is an entry; entries are discarded per search.
+    private static final class Arena {
+        int cells;
+        int generation;
+        int[] heuristic = new int[0];
+        int[] closed = new int[0];
+        // Earliest turn and its cost among the open visits of each pair
+        int[] seen = new int[0];
+        int[] bestTurn = new int[0];
+        int[] bestCost = new int[0];
+
+        int[] entryPair = new int[64];
+        int[] entryTurn = new int[64];
+        int[] entryCost = new int[64];
+        int[] entryParent = new int[64];
+        int entries;
+
+        // Binary min-heap of (f << 48 | turn << 32 | entry)
+        long[] heap = new long[256];
+        int size;
+
+        void prepare(int cells) {
+            this.cells = cells;
+            if (heuristic.length < cells) {
+                heuristic = new int[cells];
+                closed = new int[cells * 4];
+                seen = new int[cells * 4];
+                bestTurn = new int[cells * 4];
+                bestCost = new int[cells * 4];
+                generation = 0;
+            }
+            if (++generation == 0) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                generation = 1;
+            }
+            entries = 0;
+            size = 0;
+        }
+
+        void open(int pair, int turns, int from, int g, int f) {
+            if (seen[pair] != generation || turns < bestTurn[pair] || (turns == bestTurn[pair] && g < bestCost[pair])) {
+                seen[pair] = generation;
+                bestTurn[pair] = turns;
+                bestCost[pair] = g;
+            }
+            if (entries == entryPair.length) {
+                entryPair = Arrays.copyOf(entryPair, entries * 2);
+                entryTurn = Arrays.copyOf(entryTurn, entries * 2);
+                entryCost = Arrays.copyOf(entryCost, entries * 2);
+                entryParent = Arrays.copyOf(entryParent, entries * 2);
+            }
+            int entry = entries++;
+            entryPair[entry] = pair;
+            entryTurn[entry] = turns;
+            entryCost[entry] = g;
+            entryParent[entry] = from;
+
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            long key = ((long) f << 48) | ((long) turns << 32) | entry;
+            int i = size++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (heap[up] <= key) {
+                    break;
+                }
+                heap[i] = heap[up];
+                i = up;
+            }
+            heap[i] = key;
+        }
+
+        int pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (size > 0) {
+                heap[i] = last;
+            }
+            return (int) top;
+        }
+
+        Route route(SpaceTimePlanner planner, int end) {
+            int length = entryTurn[end];
+            char[] moves = new char[length];
+            int entry = end;
+            for (int i = length - 1; i >= 0; i--) {
+                int previous = entryParent[entry];
+                int pair = entryPair[entry];
+                int previousPair = entryPair[previous];
+                moves[i] = (pair >>> 2) != (previousPair >>> 2) ? 'M'
+                        : DIRECTIONS[previousPair & 3].turnLeft() == DIRECTIONS[pair & 3] ? 'L' : 'R';
+                entry = previous;
+            }
+            int cell = planner.global(entryPair[end] >>> 2);
+            return new Route(new String(moves), new Position(planner.board.row(cell), planner.board.col(cell)));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package caffeine.machines.app.game;
+
+import caffeine.machines.app.game.MoveStrategy.Proposal;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arbitrates between the {@link MoveStrategy strategies} of a turn: the calculator's
+ * built-in tiers plus every strategy registered as a bean. The winner is the proposal of
+ * the highest priority, then the highest score, then the strategy listed first.
+ * <p>
+ * With {@code game.strategies.race} every strategy runs on its own virtual thread. The
+ * arbiter takes proposals as they finish and stops waiting once no pending strategy can
+ * outrank the best one, or when the deadline passes; the remaining strategies are then
+ * cancelled. Racing is opt-in: the built-in tiers finish in microseconds, so the thread
+ * hand-offs cost more than they save unless slow registered strategies join them.
+ * Without racing, or on a single core where racing strategies would only take turns,
+ * priorities are tried from the highest down on the calling thread. Both ways pick the
+ * same winner when every strategy finishes in time.
+ */
+@Component
+public class StrategyPortfolio implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(StrategyPortfolio.class);
+    private static final StrategyPortfolio SEQUENTIAL = new StrategyPortfolio(false, List.of());
+
+    private final ExecutorService executor;
+    private final List<MoveStrategy> registered;
+
+    @Autowired
+    public StrategyPortfolio(@Value("${game.strategies.race:false}") boolean race, ObjectProvider<MoveStrategy> strategies) {
+        this(race && Runtime.getRuntime().availableProcessors() > 1, strategies.orderedStream().toList());
+    }
+
+    public StrategyPortfolio(boolean race, List<MoveStrategy> registered) {
+        this.executor = race ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.registered = List.copyOf(registered);
+    }
+
+    /**
+     * Portfolio without registered strategies that runs everything on the calling thread.
+     */
+    public static StrategyPortfolio sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * Winning proposal of {@code builtIn} followed by the registered strategies, or null
+     * when none proposed a move in time. A strategy that throws fails the decision.
+     */
+    public Winner decide(MoveStrategy[] builtIn, TurnContext turn, Deadline deadline) {
+        int count = builtIn.length + registered.size();
+        return executor != null && count > 1 ? race(builtIn, count, turn, deadline) : inSequence(builtIn, count, turn, deadline);
+    }
+
+    private Winner inSequence(MoveStrategy[] builtIn, int count, TurnContext turn, Deadline deadline) {
+        int level = Integer.MAX_VALUE;
+        while (true) {
+            // Highest priority below the levels already tried
+            int priority = Integer.MIN_VALUE;
+            boolean found = false;
+            for (int i = 0; i < count; i++) {
+                int candidate = strategy(builtIn, i).getPriority();
+                if (candidate < level && (!found || candidate > priority)) {
+                    priority = candidate;
+                    found = true;
+                }
+            }
+            if (!found) {
+                return null;
+            }
+
+            Winner best = null;
+            for (int i = 0; i < count; i++) {
+                MoveStrategy strategy = strategy(builtIn, i);
+                if (strategy.getPriority() == priority) {
+                    Proposal proposal = strategy.propose(turn, deadline);
+                    if (proposal != null && (best == null || proposal.getScore() > best.getProposal().getScore())) {
+                        best = new Winner(strategy, proposal, i);
+                    }
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+            level = priority;
+        }
+    }
+
+    private Winner race(MoveStrategy[] builtIn, int count, TurnContext turn, Deadline deadline) {
+        Deadline shared = deadline.cancellable();
+        BlockingQueue<Finished> finished = new ArrayBlockingQueue<>(count);
+        Future<?>[] running = new Future<?>[count];
+        // Keeps the game id on log lines written by the strategies
+        Map<String, String> logContext = MDC.getCopyOfContextMap();
+        for (int i = 0; i < count; i++) {
+            MoveStrategy strategy = strategy(builtIn, i);
+            int index = i;
+            running[i] = executor.submit(() -> finished.add(run(strategy, index, turn, shared, logContext)));
+        }
+
+        boolean[] done = new boolean[count];
+        Winner best = null;
+        try {
+            for (int pending = count; pending > 0 && (best == null || highestPending(builtIn, done) >= best.getStrategy().getPriority()); pending--) {
+                Finished next = finished.poll(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    log.debug("Deadline passed with {} of {} strategies pending", pending, count);
+                    break;
+                }
+                done[next.index] = true;
+                if (next.failure instanceof RuntimeException failure) {
+                    throw failure;
+                }
+                if (next.failure instanceof Error failure) {
+                    throw failure;
+                }
+                if (next.proposal != null && beats(next.proposal, next.index, builtIn, best)) {
+                    best = new Winner(strategy(builtIn, next.index), next.proposal, next.index);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Strategies checking the deadline stop at their next check, blocked ones are interrupted
+            shared.cancel();
+            for (int i = 0; i < count; i++) {
+                if (!done[i]) {
+                    running[i].cancel(true);
+                }
+            }
+        }
+        return best;
+    }
+
+    private static Finished run(MoveStrategy strategy, int index, TurnContext turn, Deadline deadline,
+                                Map<String, String> logContext) {
+        if (logContext != null) {
+            MDC.setContextMap(logContext);
+        }
+        try {
+            return new Finished(index, strategy.propose(turn, deadline), null);
+        } catch (Throwable failure) {
+            return new Finished(index, null, failure);
+        }
+    }
+
+    // Same order as the sequential pass: priority, then score, then position in the list
+    private boolean beats(Proposal proposal, int index, MoveStrategy[] builtIn, Winner best) {
+        if (best == null) {
+            return true;
+        }
+        int priority = strategy(builtIn, index).getPriority();
+        int bestPriority = best.getStrategy().getPriority();
+        if (priority != bestPriority) {
+            return priority > bestPriority;
+        }
+        if (proposal.getScore() != best.getProposal().getScore()) {
+            return proposal.getScore() > best.getProposal().getScore();
+        }
+        return index < best.index;
+    }
+
+    private int highestPending(MoveStrategy[] builtIn, boolean[] done) {
+        int highest = Integer.MIN_VALUE;
+        for (int i = 0; i < done.length; i++) {
+            if (!done[i]) {
+                highest = Math.max(highest, strategy(builtIn, i).getPriority());
+            }
+        }
+        return highest;
+    }
+
+    private MoveStrategy strategy(MoveStrategy[] builtIn, int index) {
+        return index < builtIn.length ? builtIn[index] : registered.get(index - builtIn.length);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The winning strategy and its proposal.
+     */
+    public static final class Winner {
+        private final MoveStrategy strategy;
+        private final Proposal proposal;
+        private final int index;
+
+        Winner(MoveStrategy strategy, Proposal proposal, int index) {
+            this.strategy = strategy;
+            this.proposal = proposal;
+            this.index = index;
+        }
+
+        public MoveStrategy getStrategy() {
+            return strategy;
+        }
+
+        public Proposal getProposal() {
+            return proposal;
+        }
+    }
+
+    private static final class Finished {
+        private final int index;
+        private final Proposal proposal;
+        private final Throwable failure;
+
+        Finished(int index, Proposal proposal, Throwable failure) {
+            this.index = index;
+            this.proposal = proposal;
+            this.failure = failure;
+        }
+    }
+}
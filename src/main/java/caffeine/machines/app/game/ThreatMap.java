@@ -0,0 +1,118 @@
+package caffeine.machines.app.game;
+
+import java.util.List;
+
+/**
+ * Per-turn lookup tables indexed by cell: how many enemies can hit the cell, whether
+ * an asteroid is adjacent to it and how far it is from the nearest wall. Built once
+ * per turn so candidate scans only do array reads. Each enemy's fire line is kept as its
+ * length, so the tables stay linear in the board size however many enemies there are.
+ */
+public class ThreatMap {
+    private final Board board;
+    private final List<Position> enemies;
+    private final Direction[] enemyDirections;
+    private final byte[] reach;
+    private final byte[] danger;
+    private final byte[] wallDistance;
+
+    ThreatMap(Board board, List<Position> enemies, Direction[] enemyDirections, int fireRange) {
+        this.board = board;
+        this.enemies = enemies;
+        this.enemyDirections = enemyDirections;
+        int cells = board.getWidth() * board.getHeight();
+        this.reach = new byte[enemies.size()];
+        this.danger = new byte[cells];
+        this.wallDistance = new byte[cells];
+
+        for (int i = 0; i < enemies.size(); i++) {
+            Position enemy = enemies.get(i);
+            Direction dir = enemyDirections[i];
+            int row = enemy.row;
+            int col = enemy.col;
+            // Same rules as Board#fireLine: the first cell that is not walkable is still hit
+            for (int step = 0; step < fireRange; step++) {
+                row += dir.dx;
+                col += dir.dy;
+                if (!board.contains(row, col)) {
+                    break;
+                }
+                int cell = board.index(row, col);
+                reach[i]++;
+                if (danger[cell] < Byte.MAX_VALUE) {
+                    danger[cell]++;
+                }
+                if (!board.isWalkable(row, col)) {
+                    break;
+                }
+            }
+        }
+
+        for (int row = 0; row < board.getHeight(); row++) {
+            for (int col = 0; col < board.getWidth(); col++) {
+                int distance = Math.min(Math.min(row, board.getHeight() - 1 - row), Math.min(col, board.getWidth() - 1 - col));
+                wallDistance[board.index(row, col)] = (byte) Math.min(distance, Byte.MAX_VALUE);
+            }
+        }
+    }
+
+    // Same tables on the next turn's board; only valid when no fire line was touched
+    private ThreatMap(ThreatMap previous, Board board, List<Position> enemies) {
+        this.board = board;
+        this.enemies = enemies;
+        this.enemyDirections = previous.enemyDirections;
+        this.reach = previous.reach;
+        this.danger = previous.danger;
+        this.wallDistance = previous.wallDistance;
+    }
+
+    /**
+     * This map for the next turn when only {@code changedCells} differ and no enemy moved or
+     * turned, or null when one of the changed cells lies on a fire line and became walkable
+     * or blocked: only such a change on the line, up to and including the cell that stops
+     * the shot, can alter it. The player turning in place keeps the map.
+     */
+    ThreatMap carryOver(Board next, List<Position> nextEnemies, int[] changedCells, int changes) {
+        for (int i = 0; i < changes; i++) {
+            int cell = changedCells[i];
+            if (danger[cell] > 0 && Board.get(board.getWalkable(), cell) != Board.get(next.getWalkable(), cell)) {
+                return null;
+            }
+        }
+        return new ThreatMap(this, next, nextEnemies);
+    }
+
+    /**
+     * Number of enemies whose shot would hit (row, col) this turn.
+     */
+    public int getDanger(int row, int col) {
+        return board.contains(row, col) ? danger[board.index(row, col)] : 0;
+    }
+
+    /**
+     * Whether the enemy at {@code enemy} (as listed in the turn context) can hit (row, col).
+     */
+    public boolean canEnemyHit(int enemy, int row, int col) {
+        Position from = enemies.get(enemy);
+        Direction dir = enemyDirections[enemy];
+        // Steps along the facing; the cell must lie on the line, not beside it
+        int steps = dir.dx != 0 ? (row - from.row) * dir.dx : (col - from.col) * dir.dy;
+        boolean onLine = dir.dx != 0 ? col == from.col : row == from.row;
+        return onLine && steps >= 1 && steps <= reach[enemy];
+    }
+
+    public boolean hasCover(int row, int col) {
+        return board.hasAdjacentAsteroid(row, col);
+    }
+
+    /**
+     * Distance to the closest border, 0 for border cells; -1 outside the board.
+     */
+    public int getWallDistance(int row, int col) {
+        return board.contains(row, col) ? wallDistance[board.index(row, col)] : -1;
+    }
+
+    public List<Position> getEnemies() {
+        return enemies;
+    }
+}
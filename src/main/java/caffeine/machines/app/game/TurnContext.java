@@ -0,0 +1,329 @@
+package caffeine.machines.app.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Everything the evaluators need to know about one turn, decoded once.
+ * Entity lists and ship directions are filled when the field is parsed; derived
+ * facts such as the {@link ThreatMap} are computed on first use and then
+ * reused by every evaluator of the turn, including {@link MoveStrategy strategies}
+ * running side by side.
+ */
+public class TurnContext {
+    private static final Logger log = LoggerFactory.getLogger(TurnContext.class);
+
+    // Boards up to this size keep their distance field in the session between turns; a larger
+    // one would pin three arrays of four ints per cell for as long as the session is idle
+    static final int MAX_RETAINED_CELLS = 32 * 32;
+
+    private final Board board;
+    private final int narrowingIn;
+    private final Position player;
+    private final Direction playerDirection;
+    private final List<Position> enemies;
+    private final List<Position> coins;
+    private final Direction[] enemyDirections;
+    private final long hash;
+
+    private ThreatMap threatMap;
+    private long[] enemyVicinity;
+    private DistanceField distanceField;
+    // Arrays of the previous turn's distance field, taken over by the next search
+    private DistanceField recycledField;
+    private boolean distanceFieldReleased;
+
+    private TurnContext(Board board, int narrowingIn, Position player, Direction playerDirection,
+                        List<Position> enemies, List<Position> coins, Direction[] enemyDirections, long hash) {
+        this.board = board;
+        this.narrowingIn = narrowingIn;
+        this.player = player;
+        this.playerDirection = playerDirection;
+        this.enemies = enemies;
+        this.coins = coins;
+        this.enemyDirections = enemyDirections;
+        this.hash = hash;
+    }
+
+    public static TurnContext parse(List<List<String>> rawField, int size, int narrowingIn) {
+        return parse(FieldGrid.of(rawField), size, narrowingIn);
+    }
+
+    public static TurnContext parse(FieldGrid field, int size, int narrowingIn) {
+        Board board = Board.parse(field, size);
+
+        int playerIndex = board.getPlayerIndex();
+        if (playerIndex < 0) {
+            throw new IllegalStateException("Player not found on field");
+        }
+        Position player = new Position(board.row(playerIndex), board.col(playerIndex));
+        Direction playerDirection = decodeDirection(field.get(player.row, player.col), player, size);
+
+        List<Position> enemies = board.positions(board.getEnemies());
+        Direction[] enemyDirections = new Direction[board.getWidth() * board.getHeight()];
+        for (Position enemy : enemies) {
+            enemyDirections[board.index(enemy.row, enemy.col)] = decodeDirection(field.get(enemy.row, enemy.col), enemy, size);
+        }
+
+        return new TurnContext(board, narrowingIn, player, playerDirection, enemies,
+                board.positions(board.getCoins()), enemyDirections,
+                ZobristHash.of(board, playerDirection, enemyDirections));
+    }
+
+    /**
+     * Context for the next turn of the same game, derived from {@code previous} by applying
+     * only the cells that differ from {@code previousCells} (see {@link #cells}). Entity lists,
+     * the threat map, the enemy vicinity and the distance field are carried over when no
+     * change can affect them. Returns null when a full {@link #parse} is needed instead:
+     * more than an eighth of the cells changed (e.g. a narrowing step), the size differs, or
+     * the field does not have exactly one player. A distance field that cannot be carried
+     * over is detached from {@code previous} and its arrays are reused for this turn's.
+     */
+    public static TurnContext update(TurnContext previous, byte[] previousCells, FieldGrid field, int size, int narrowingIn) {
+        Board previousBoard = previous.board;
+        int cells = size * size;
+        if (previousBoard.getWidth() != size || previousBoard.getHeight() != size || previousCells.length != cells
+                || field.getWidth() < size || field.getHeight() < size || previousBoard.getPlayerCount() != 1) {
+            return null;
+        }
+
+        // Grown on demand: a turn changes a handful of cells however large the board is
+        int maxChanges = cells / 8;
+        int[] changed = new int[Math.min(maxChanges, 16)];
+        int changes = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int cell = row * size + col;
+                if (field.get(row, col) != previousCells[cell]) {
+                    if (changes == maxChanges) {
+                        return null;
+                    }
+                    if (changes == changed.length) {
+                        changed = Arrays.copyOf(changed, Math.min(maxChanges, changes * 2));
+                    }
+                    changed[changes++] = cell;
+                }
+            }
+        }
+
+        Board board = previousBoard.copy();
+        // Shared with the previous turn until an enemy cell changes
+        Direction[] enemyDirections = previous.enemyDirections;
+        boolean enemiesChanged = false;
+        boolean coinsChanged = false;
+        boolean walkableChanged = false;
+        // Starts from the previous hash, which carries the size seed of the same dimensions
+        long hash = ZobristHash.toggle(previous.hash, previousBoard.getPlayerIndex(), ZobristHash.player(previous.playerDirection));
+
+        for (int i = 0; i < changes; i++) {
+            int cell = changed[i];
+            byte oldCode = previousCells[cell];
+            byte code = field.get(board.row(cell), board.col(cell));
+            board.setCell(cell, oldCode, code);
+            hash = toggleContent(hash, cell, oldCode, previous.enemyDirections[cell]);
+
+            boolean enemyCell = FieldGrid.kind(oldCode) == FieldGrid.ENEMY || FieldGrid.kind(code) == FieldGrid.ENEMY;
+            if (enemyCell && !enemiesChanged) {
+                enemyDirections = enemyDirections.clone();
+            }
+            if (enemyCell) {
+                enemyDirections[cell] = null;
+            }
+            if (FieldGrid.kind(code) == FieldGrid.ENEMY) {
+                Position enemy = new Position(board.row(cell), board.col(cell));
+                enemyDirections[cell] = decodeDirection(code, enemy, size);
+            }
+            hash = toggleContent(hash, cell, code, enemyDirections[cell]);
+
+            enemiesChanged |= enemyCell;
+            coinsChanged |= FieldGrid.kind(oldCode) == FieldGrid.COIN || FieldGrid.kind(code) == FieldGrid.COIN;
+            walkableChanged |= isWalkable(oldCode) != isWalkable(code);
+        }
+        if (board.getPlayerCount() != 1) {
+            return null;
+        }
+
+        int playerIndex = board.getPlayerIndex();
+        Position player = playerIndex == previousBoard.getPlayerIndex()
+                ? previous.player : new Position(board.row(playerIndex), board.col(playerIndex));
+        Direction playerDirection = decodeDirection(field.get(player.row, player.col), player, size);
+        hash = ZobristHash.toggle(hash, playerIndex, ZobristHash.player(playerDirection));
+
+        List<Position> enemies = enemiesChanged ? board.positions(board.getEnemies()) : previous.enemies;
+        List<Position> coins = coinsChanged ? board.positions(board.getCoins()) : previous.coins;
+        TurnContext next = new TurnContext(board, narrowingIn, player, playerDirection, enemies, coins, enemyDirections, hash);
+
+        if (!enemiesChanged) {
+            next.enemyVicinity = previous.enemyVicinity;
+            if (previous.threatMap != null) {
+                next.threatMap = previous.threatMap.carryOver(board, enemies, changed, changes);
+            }
+        }
+        // Strategies of the previous turn may still be querying it; see DistanceField on recycling
+        synchronized (previous) {
+            if (!walkableChanged && player == previous.player && playerDirection == previous.playerDirection) {
+                next.distanceField = previous.distanceField;
+            } else {
+                next.recycledField = previous.distanceField != null ? previous.distanceField : previous.recycledField;
+                previous.distanceField = null;
+                previous.recycledField = null;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * The top-left {@code size x size} cell codes of {@code field}, row-major, written into
+     * {@code reuse} when it has the right length.
+     */
+    public static byte[] cells(FieldGrid field, int size, byte[] reuse) {
+        byte[] cells = reuse != null && reuse.length == size * size ? reuse : new byte[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                cells[row * size + col] = field.get(row, col);
+            }
+        }
+        return cells;
+    }
+
+    // Zobrist contribution of everything but the player, which is keyed separately
+    private static long toggleContent(long hash, int cell, byte code, Direction enemyDirection) {
+        return switch (FieldGrid.kind(code)) {
+            case FieldGrid.ASTEROID -> ZobristHash.toggle(hash, cell, ZobristHash.ASTEROID);
+            case FieldGrid.COIN -> ZobristHash.toggle(hash, cell, ZobristHash.COIN);
+            case FieldGrid.UNKNOWN -> ZobristHash.toggle(hash, cell, ZobristHash.UNKNOWN);
+            case FieldGrid.ENEMY -> ZobristHash.toggle(hash, cell, ZobristHash.enemy(enemyDirection));
+            default -> hash;
+        };
+    }
+
+    private static boolean isWalkable(byte code) {
+        int kind = FieldGrid.kind(code);
+        return kind == FieldGrid.EMPTY || kind == FieldGrid.COIN;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getNarrowingIn() {
+        return narrowingIn;
+    }
+
+    public Position getPlayer() {
+        return player;
+    }
+
+    public Direction getPlayerDirection() {
+        return playerDirection;
+    }
+
+    public List<Position> getEnemies() {
+        return enemies;
+    }
+
+    public List<Position> getCoins() {
+        return coins;
+    }
+
+    /**
+     * {@link ZobristHash} of the field including ship facings, without the narrowing countdown.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    public Direction getEnemyDirection(Position enemy) {
+        return getEnemyDirection(enemy.row, enemy.col);
+    }
+
+    public Direction getEnemyDirection(int row, int col) {
+        Direction dir = board.contains(row, col) ? enemyDirections[board.index(row, col)] : null;
+        return dir != null ? dir : getDefaultDirection(new Position(row, col), board.getWidth());
+    }
+
+    /**
+     * Danger, cover and wall-distance tables for this turn.
+     */
+    public synchronized ThreatMap getThreatMap(int fireRange) {
+        if (threatMap == null) {
+            Direction[] directions = new Direction[enemies.size()];
+            for (int i = 0; i < directions.length; i++) {
+                directions[i] = getEnemyDirection(enemies.get(i));
+            }
+            threatMap = new ThreatMap(board, enemies, directions, fireRange);
+        }
+        return threatMap;
+    }
+
+    /**
+     * Turn-exact distances from the player, computed with a single search per turn.
+     */
+    public synchronized DistanceField getDistanceField() {
+        if (distanceField == null) {
+            DistanceField field = new DistanceField(board, player, playerDirection, recycledField);
+            recycledField = null;
+            if (distanceFieldReleased) {
+                return field;
+            }
+            distanceField = field;
+        }
+        return distanceField;
+    }
+
+    /**
+     * Called once the turn is decided: on boards larger than {@link #MAX_RETAINED_CELLS} the
+     * distance field is dropped, so the session does not keep it until the next turn, and
+     * later callers get a field of their own.
+     */
+    synchronized void releaseLargeTables() {
+        if (board.getWidth() * board.getHeight() > MAX_RETAINED_CELLS) {
+            distanceField = null;
+            recycledField = null;
+            distanceFieldReleased = true;
+        }
+    }
+
+    /**
+     * Enemy cells and their eight neighbours, i.e. every cell closer than 2 to an enemy.
+     */
+    public synchronized long[] getEnemyVicinity() {
+        if (enemyVicinity == null) {
+            enemyVicinity = Board.or(board.getEnemies(), board.neighbours(board.getEnemies()));
+        }
+        return enemyVicinity;
+    }
+
+    private static Direction decodeDirection(byte cell, Position pos, int size) {
+        Direction dir = FieldGrid.direction(cell);
+        if (dir != null) {
+            log.trace("Ship at {} faces {}", pos, dir);
+            return dir;
+        }
+
+        Direction defaultDir = getDefaultDirection(pos, size);
+        log.trace("Ship at {} has no direction, using {} towards center", pos, defaultDir);
+        return defaultDir;
+    }
+
+    static Direction getDefaultDirection(Position pos, int size) {
+        int centerRow = size / 2;
+        int centerCol = size / 2;
+
+        // Calculate distances to center
+        int verticalDist = centerRow - pos.row;
+        int horizontalDist = centerCol - pos.col;
+
+        // Choose the direction that gets us closer to center
+        if (Math.abs(verticalDist) > Math.abs(horizontalDist)) {
+            // Vertical distance is greater
+            return verticalDist > 0 ? Direction.SOUTH : Direction.NORTH;
+        } else {
+            // Horizontal distance is greater or equal
+            return horizontalDist > 0 ? Direction.EAST : Direction.WEST;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package caffeine.machines.app.game;
+
+/**
+ * Zobrist-style position hashing: every (cell, content) pair has a pseudo-random 64-bit
+ * key and a position hashes to the XOR of the keys of its non-empty cells. Changing one
+ * cell is therefore a single {@link #toggle} of the old and the new content.
+ * <p>
+ * Keys are derived with a SplitMix64 finalizer instead of a table, so any board size works.
+ * Cell keys only depend on the flat cell index, so every hash starts from a seed of the
+ * board's dimensions: boards of different sizes never share a hash through equal indices.
+ */
+public final class ZobristHash {
+    public static final int ASTEROID = 1;
+    public static final int COIN = 2;
+    public static final int UNKNOWN = 3;
+    private static final int ENEMY = 4;
+    private static final int PLAYER = 8;
+    private static final int KINDS = 12;
+
+    private static final long NARROWING_SALT = 0x6A09E667F3BCC909L;
+    private static final long SIZE_SALT = 0xBB67AE8584CAA73BL;
+
+    private ZobristHash() {
+    }
+
+    public static int enemy(Direction facing) {
+        return ENEMY + facing.ordinal();
+    }
+
+    public static int player(Direction facing) {
+        return PLAYER + facing.ordinal();
+    }
+
+    public static long key(int cell, int kind) {
+        return mix(cell * (long) KINDS + kind);
+    }
+
+    /**
+     * Adds or removes {@code kind} at {@code cell}; applying it twice restores the hash.
+     */
+    public static long toggle(long hash, int cell, int kind) {
+        return hash ^ key(cell, kind);
+    }
+
+    /**
+     * Key for the narrowing countdown, mixed into cache keys next to the field hash.
+     */
+    public static long narrowing(int bucket) {
+        return mix(NARROWING_SALT + bucket);
+    }
+
+    /**
+     * Hash of an empty board of the given dimensions, the start of every board's hash.
+     */
+    public static long size(int width, int height) {
+        return mix(SIZE_SALT + ((long) width << 32 | height));
+    }
+
+    public static long of(Board board, Direction playerDirection, Direction[] enemyDirectionsByCell) {
+        long hash = size(board.getWidth(), board.getHeight());
+        hash = xorAll(hash, board.getAsteroids(), ASTEROID);
+        hash = xorAll(hash, board.getCoins(), COIN);
+        hash = xorAll(hash, board.getUnknown(), UNKNOWN);
+        long[] enemies = board.getEnemies();
+        for (int cell = Board.nextSetBit(enemies, 0); cell >= 0; cell = Board.nextSetBit(enemies, cell + 1)) {
+            hash = toggle(hash, cell, enemy(enemyDirectionsByCell[cell]));
+        }
+        if (board.getPlayerIndex() >= 0) {
+            hash = toggle(hash, board.getPlayerIndex(), player(playerDirection));
+        }
+        return hash;
+    }
+
+    private static long xorAll(long hash, long[] mask, int kind) {
+        for (int cell = Board.nextSetBit(mask, 0); cell >= 0; cell = Board.nextSetBit(mask, cell + 1)) {
+            hash = toggle(hash, cell, kind);
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
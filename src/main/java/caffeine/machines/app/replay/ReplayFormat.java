@@ -0,0 +1,131 @@
+package caffeine.machines.app.replay;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary layout of replay segments.
+ * <p>
+ * A segment starts with {@code MAGIC} and {@code VERSION} (two ints) followed by records
+ * {@code [int length][payload]}; a zero length marks the end of the written part. The length
+ * is written after the payload, so a record is either complete or not there at all.
+ * <p>
+ * Payload: kind byte, gameId, narrowingIn, wall-clock millis, move, decision nanos, phase
+ * count and phase nanos (all varints, signed ones zigzag-encoded), then the field as
+ * {@link caffeine.machines.app.game.FieldGrid} cell codes. A {@code KEYFRAME} stores width,
+ * height and every cell; a {@code DELTA} stores only the cells that changed since the
+ * previous turn of the same game in the same segment, as (row-major cell index, code) pairs.
+ * Strings are a varint length plus UTF-8 bytes.
+ */
+final class ReplayFormat {
+    static final int MAGIC = 0x4D565250; // "MVRP"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 8;
+
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+
+    // Bound on a record's fields before the cells, for one-letter moves and a few phases
+    private static final int RECORD_OVERHEAD = 256;
+
+    private ReplayFormat() {
+    }
+
+    /**
+     * Bytes a segment needs to hold a keyframe of a {@code width} x {@code height} field
+     * next to its header and end marker.
+     */
+    static long segmentSizeFor(int width, int height) {
+        return HEADER_SIZE + 4 + RECORD_OVERHEAD + (long) width * height + 4;
+    }
+
+    /**
+     * Growable byte buffer for encoding one record before it is copied into the segment.
+     */
+    static final class Output {
+        private byte[] bytes = new byte[4096];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeBytes(byte[] value, int length) {
+            ensure(length);
+            System.arraycopy(value, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static long readSignedVarLong(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static int readSignedVarInt(ByteBuffer in) {
+        return Math.toIntExact(readSignedVarLong(in));
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = Math.toIntExact(readVarLong(in));
+        if (length == 0) {
+            return "";
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
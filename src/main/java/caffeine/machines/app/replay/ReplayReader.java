@@ -0,0 +1,112 @@
+package caffeine.machines.app.replay;
+
+import caffeine.machines.app.game.FieldGrid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Streams the turns of replay segments written by {@link ReplayRecorder}, rebuilding full
+ * fields from keyframes and deltas.
+ */
+public final class ReplayReader {
+
+    private ReplayReader() {
+    }
+
+    /**
+     * Segment files under {@code path} (or {@code path} itself), in recording order.
+     */
+    public static List<Path> segments(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".bin")).sorted().toList();
+        }
+    }
+
+    public static void read(Path segment, Consumer<ReplayTurn> consumer) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < ReplayFormat.HEADER_SIZE || in.getInt() != ReplayFormat.MAGIC) {
+            throw new IOException("Not a replay segment: " + segment);
+        }
+        int version = in.getInt();
+        if (version != ReplayFormat.VERSION) {
+            throw new IOException("Unsupported replay version " + version + ": " + segment);
+        }
+
+        Map<Integer, Frame> frames = new HashMap<>();
+        while (in.remaining() >= 4) {
+            int length = in.getInt();
+            if (length == 0) {
+                break;
+            }
+            ByteBuffer record = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            consumer.accept(decode(record, frames));
+        }
+    }
+
+    private static ReplayTurn decode(ByteBuffer in, Map<Integer, Frame> frames) throws IOException {
+        byte kind = in.get();
+        int gameId = ReplayFormat.readSignedVarInt(in);
+        int narrowingIn = ReplayFormat.readSignedVarInt(in);
+        long timestampMillis = ReplayFormat.readVarLong(in);
+        String move = ReplayFormat.readString(in);
+        long decisionNanos = ReplayFormat.readVarLong(in);
+        long[] phaseNanos = new long[(int) ReplayFormat.readVarLong(in)];
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = ReplayFormat.readVarLong(in);
+        }
+
+        Frame frame;
+        if (kind == ReplayFormat.KEYFRAME) {
+            int width = (int) ReplayFormat.readVarLong(in);
+            int height = (int) ReplayFormat.readVarLong(in);
+            byte[] cells = new byte[width * height];
+            in.get(cells);
+            frame = new Frame(width, height, cells);
+        } else if (kind == ReplayFormat.DELTA) {
+            Frame previous = frames.get(gameId);
+            if (previous == null) {
+                throw new IOException("Delta without keyframe for game " + gameId);
+            }
+            frame = new Frame(previous.width, previous.height, previous.cells.clone());
+            long changes = ReplayFormat.readVarLong(in);
+            for (long i = 0; i < changes; i++) {
+                frame.cells[(int) ReplayFormat.readVarLong(in)] = in.get();
+            }
+        } else {
+            throw new IOException("Unknown replay record kind " + kind);
+        }
+        frames.put(gameId, frame);
+        // The frame's array is never written again, so the grid can share it
+        return new ReplayTurn(gameId, narrowingIn, timestampMillis, new FieldGrid(frame.width, frame.height, frame.cells),
+                move, decisionNanos, phaseNanos);
+    }
+
+    private static final class Frame {
+        final int width;
+        final int height;
+        final byte[] cells;
+
+        Frame(int width, int height, byte[] cells) {
+            this.width = width;
+            this.height = height;
+            this.cells = cells;
+        }
+    }
+}
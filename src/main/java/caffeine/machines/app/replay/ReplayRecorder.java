@@ -0,0 +1,213 @@
+package caffeine.machines.app.replay;
+
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.GameRules;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends every decision to memory-mapped replay segments in {@code game.replay.dir}
+ * (disabled when empty). Writing a record is an encode into a reused buffer plus a copy into
+ * the mapping; the OS persists the pages, so a crashed or restarted process loses nothing it
+ * has written. Each start and each full segment opens a new file, so segments never need
+ * to be scanned or repaired. See {@link ReplayFormat} for the layout.
+ * <p>
+ * A segment must hold a keyframe of a {@link GameRules#MAX_FIELD_SIZE} field; turns of larger
+ * fields that do not fit are dropped, and the game's next turn is a keyframe again.
+ */
+@Component
+public class ReplayRecorder implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ReplayRecorder.class);
+
+    // Beyond this many games the delta baselines are dropped; the next turns become keyframes
+    private static final int MAX_TRACKED_GAMES = 4096;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<Integer, Baseline> baselines = new HashMap<>();
+    private final ReplayFormat.Output output = new ReplayFormat.Output();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentSequence;
+    private boolean failed;
+
+    @Autowired
+    public ReplayRecorder(@Value("${game.replay.dir:}") String directory,
+                          @Value("${game.replay.segment-size:64MB}") DataSize segmentSize) {
+        this(directory.isBlank() ? null : Path.of(directory), segmentSize.toBytes());
+    }
+
+    public ReplayRecorder(Path directory, long segmentSize) {
+        long minimum = ReplayFormat.segmentSizeFor(GameRules.MAX_FIELD_SIZE, GameRules.MAX_FIELD_SIZE);
+        if (directory != null && segmentSize < minimum) {
+            throw new IllegalArgumentException("Replay segments of " + segmentSize + " bytes cannot hold a keyframe of a "
+                    + GameRules.MAX_FIELD_SIZE + "x" + GameRules.MAX_FIELD_SIZE + " field, need at least " + minimum);
+        }
+        this.directory = directory;
+        this.segmentSize = (int) Math.min(segmentSize, Integer.MAX_VALUE);
+    }
+
+    public static ReplayRecorder disabled() {
+        return new ReplayRecorder(null, 0);
+    }
+
+    public boolean isEnabled() {
+        return directory != null && !failed;
+    }
+
+    /**
+     * Records one decision. Turns of the same game must be recorded in order.
+     */
+    public void record(int gameId, int narrowingIn, FieldGrid field, String move,
+                       long decisionNanos, long[] phaseNanos) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            try {
+                if (segment == null) {
+                    openSegment();
+                }
+                Baseline keyframe = encode(gameId, narrowingIn, now, field, move, decisionNanos, phaseNanos);
+                if (output.size() + 8 > segment.remaining()) {
+                    // Start over in a new segment; its first turn of every game is a keyframe
+                    openSegment();
+                    keyframe = encode(gameId, narrowingIn, now, field, move, decisionNanos, phaseNanos);
+                    if (output.size() + 8 > segment.remaining()) {
+                        // Not tracked either, so the game's next turn is not a delta against it
+                        log.warn("Replay record of {} bytes does not fit a segment, dropped", output.size());
+                        return;
+                    }
+                }
+                int position = segment.position();
+                segment.put(position + 4, output.bytes(), 0, output.size());
+                segment.putInt(position, output.size());
+                segment.position(position + 4 + output.size());
+                if (keyframe != null) {
+                    track(gameId, keyframe);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Replay recording failed, recorder disabled", e);
+                failed = true;
+                closeSegment();
+            }
+        }
+    }
+
+    // Returns the baseline of a keyframe, to be tracked once the record is written, or null
+    // for a delta, which updates the game's baseline in place
+    private Baseline encode(int gameId, int narrowingIn, long timestampMillis, FieldGrid field, String move,
+                            long decisionNanos, long[] phaseNanos) {
+        Baseline previous = baselines.get(gameId);
+        boolean delta = previous != null && previous.width == field.getWidth() && previous.height == field.getHeight();
+
+        output.reset();
+        output.writeByte(delta ? ReplayFormat.DELTA : ReplayFormat.KEYFRAME);
+        output.writeSignedVarLong(gameId);
+        output.writeSignedVarLong(narrowingIn);
+        output.writeVarLong(timestampMillis);
+        output.writeString(move);
+        output.writeVarLong(decisionNanos);
+        int phases = phaseNanos != null ? phaseNanos.length : 0;
+        output.writeVarLong(phases);
+        for (int i = 0; i < phases; i++) {
+            output.writeVarLong(phaseNanos[i]);
+        }
+
+        int cellCount = field.getWidth() * field.getHeight();
+        if (delta) {
+            int changes = 0;
+            for (int i = 0; i < cellCount; i++) {
+                if (field.get(i) != previous.cells[i]) {
+                    changes++;
+                }
+            }
+            output.writeVarLong(changes);
+            for (int i = 0; i < cellCount; i++) {
+                if (field.get(i) != previous.cells[i]) {
+                    output.writeVarLong(i);
+                    output.writeByte(field.get(i));
+                    previous.cells[i] = field.get(i);
+                }
+            }
+            return null;
+        }
+        output.writeVarLong(field.getWidth());
+        output.writeVarLong(field.getHeight());
+        Baseline current = new Baseline(field.getWidth(), field.getHeight(), new byte[cellCount]);
+        for (int i = 0; i < cellCount; i++) {
+            current.cells[i] = field.get(i);
+        }
+        output.writeBytes(current.cells, cellCount);
+        return current;
+    }
+
+    private void track(int gameId, Baseline keyframe) {
+        if (baselines.size() >= MAX_TRACKED_GAMES && !baselines.containsKey(gameId)) {
+            baselines.clear();
+        }
+        baselines.put(gameId, keyframe);
+    }
+
+    private void openSegment() throws IOException {
+        closeSegment();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("replay-%d-%04d.bin", System.currentTimeMillis(), segmentSequence++));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(ReplayFormat.MAGIC);
+        segment.putInt(ReplayFormat.VERSION);
+        baselines.clear();
+        log.info("Recording replay to {}", file);
+    }
+
+    private void closeSegment() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close replay segment", e);
+            }
+            channel = null;
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        closeSegment();
+    }
+
+    private static final class Baseline {
+        final int width;
+        final int height;
+        final byte[] cells;
+
+        Baseline(int width, int height, byte[] cells) {
+            this.width = width;
+            this.height = height;
+            this.cells = cells;
+        }
+    }
+}
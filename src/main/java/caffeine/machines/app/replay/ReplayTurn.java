@@ -0,0 +1,60 @@
+package caffeine.machines.app.replay;
+
+import caffeine.machines.app.game.FieldGrid;
+
+/**
+ * One recorded decision: the request as received, the move that was returned and how long
+ * the decision took.
+ */
+public final class ReplayTurn {
+    private final int gameId;
+    private final int narrowingIn;
+    private final long timestampMillis;
+    private final FieldGrid field;
+    private final String move;
+    private final long decisionNanos;
+    private final long[] phaseNanos;
+
+    ReplayTurn(int gameId, int narrowingIn, long timestampMillis, FieldGrid field,
+               String move, long decisionNanos, long[] phaseNanos) {
+        this.gameId = gameId;
+        this.narrowingIn = narrowingIn;
+        this.timestampMillis = timestampMillis;
+        this.field = field;
+        this.move = move;
+        this.decisionNanos = decisionNanos;
+        this.phaseNanos = phaseNanos;
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+
+    public int getNarrowingIn() {
+        return narrowingIn;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public FieldGrid getField() {
+        return field;
+    }
+
+    public String getMove() {
+        return move;
+    }
+
+    public long getDecisionNanos() {
+        return decisionNanos;
+    }
+
+    /**
+     * Nanoseconds per {@link caffeine.machines.app.game.MoveMetrics.Phase}, by ordinal;
+     * empty for turns that skipped evaluation.
+     */
+    public long[] getPhaseNanos() {
+        return phaseNanos;
+    }
+}
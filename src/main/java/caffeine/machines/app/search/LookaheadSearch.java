@@ -0,0 +1,159 @@
+package caffeine.machines.app.search;
+
+import caffeine.machines.app.game.TurnContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+import static caffeine.machines.app.game.GameRules.*;
+
+/**
+ * Iterative-deepening search over sequences of M/L/R/F. Each iteration looks one turn
+ * further ahead; the result of the deepest completed iteration is kept, so whenever the
+ * deadline passes the best move found so far is returned. Turns on which the game fires
+ * regardless of the decision are played as F only, so only lines that can happen are
+ * scored.
+ */
+@Component
+public class LookaheadSearch {
+    private static final String[] MOVES = {"M", "L", "R", "F"};
+    private static final String FIRE = "F";
+    // A game's fire counter on a turn it decides freely, as on its first turn
+    private static final int FREE_TURN = 1;
+    private static final double DISCOUNT = 0.95;
+    // Dying forfeits roughly one narrowing phase worth of survival points
+    private static final double DEATH_PENALTY = -SURVIVAL_SCORE * NARROWING_INTERVAL;
+    private static final double EPSILON = 1e-9;
+
+    private final long budgetNanos;
+    private final int maxDepth;
+    private final ThreadLocal<Run> runs;
+
+    @Autowired
+    public LookaheadSearch(@Value("${game.search.budget:15ms}") Duration budget,
+                           @Value("${game.search.max-depth:6}") int maxDepth) {
+        this.budgetNanos = budget.toNanos();
+        this.maxDepth = maxDepth;
+        this.runs = ThreadLocal.withInitial(() -> new Run(maxDepth));
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public boolean isEnabled() {
+        return budgetNanos > 0 && maxDepth > 0;
+    }
+
+    /**
+     * Searches within the configured budget, starting now.
+     */
+    public String findBestMove(TurnContext turn, String fallback) {
+        return findBestMove(turn, fallback, System.nanoTime() + budgetNanos);
+    }
+
+    /**
+     * Best first move of the deepest fully searched horizon. {@code fallback} is returned
+     * if not even one turn could be searched, and wins ties with other moves.
+     */
+    public String findBestMove(TurnContext turn, String fallback, long deadlineNanos) {
+        return findBestMove(turn, fallback, deadlineNanos, FREE_TURN);
+    }
+
+    /**
+     * As {@link #findBestMove(TurnContext, String, long)} for a game whose fire counter is
+     * {@code fireActionCounter} before this turn's move; the game fires whenever it is even.
+     */
+    public String findBestMove(TurnContext turn, String fallback, long deadlineNanos, int fireActionCounter) {
+        if (!isEnabled()) {
+            return fallback;
+        }
+        Run run = runs.get();
+        run.start(deadlineNanos);
+        run.stack[0].load(turn, fireActionCounter);
+        if (run.stack[0].mustFire()) {
+            return FIRE;
+        }
+        String best = fallback;
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            double[] values = run.values;
+            for (int i = 0; i < MOVES.length && !run.timedOut; i++) {
+                values[i] = run.evaluate(0, MOVES[i], depth, 1.0);
+            }
+            if (run.timedOut) {
+                break;
+            }
+            best = pick(values, fallback);
+        }
+        return best;
+    }
+
+    private static String pick(double[] values, String fallback) {
+        int bestIndex = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[bestIndex] + EPSILON) {
+                bestIndex = i;
+            }
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (MOVES[i].equals(fallback) && values[i] >= values[bestIndex] - EPSILON) {
+                return fallback;
+            }
+        }
+        return MOVES[bestIndex];
+    }
+
+    // Per-thread search workspace: one reusable state per ply, so nodes allocate nothing
+    private static final class Run {
+        private final SearchState[] stack;
+        private final double[] values = new double[MOVES.length];
+        private long deadlineNanos;
+        private boolean timedOut;
+
+        Run(int maxDepth) {
+            stack = new SearchState[maxDepth + 1];
+            for (int i = 0; i < stack.length; i++) {
+                stack[i] = new SearchState();
+            }
+        }
+
+        void start(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+            this.timedOut = false;
+        }
+
+        double evaluate(int ply, String move, int depth, double weight) {
+            SearchState child = stack[ply + 1];
+            child.copyFrom(stack[ply]);
+            double value = child.apply(move) * weight;
+            if (!child.isPlayerAlive()) {
+                return value + DEATH_PENALTY * weight;
+            }
+            return value + search(ply + 1, depth - 1, weight * DISCOUNT);
+        }
+
+        private double search(int ply, int depth, double weight) {
+            if (depth == 0) {
+                return stack[ply].evaluateLeaf() * weight;
+            }
+            if (System.nanoTime() - deadlineNanos > 0) {
+                timedOut = true;
+                return 0;
+            }
+            if (stack[ply].mustFire()) {
+                return evaluate(ply, FIRE, depth, weight);
+            }
+            double best = Double.NEGATIVE_INFINITY;
+            for (String move : MOVES) {
+                best = Math.max(best, evaluate(ply, move, depth, weight));
+                if (timedOut) {
+                    return 0;
+                }
+            }
+            return best;
+        }
+    }
+}
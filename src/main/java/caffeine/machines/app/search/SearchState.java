@@ -0,0 +1,347 @@
+package caffeine.machines.app.search;
+
+import caffeine.machines.app.game.Board;
+import caffeine.machines.app.game.Direction;
+import caffeine.machines.app.game.Position;
+import caffeine.machines.app.game.TurnContext;
+
+import java.util.List;
+
+import static caffeine.machines.app.game.GameRules.*;
+
+/**
+ * Compact copy of a turn that the lookahead search can play forward: one byte per cell
+ * plus the ships' positions and facings. Enemies reply with a fixed, greedy policy. The
+ * player fires on every turn where the game's fire counter is even, as the move service
+ * does, so those turns leave no choice.
+ * <p>
+ * States are mutable and reused: the search keeps one per ply and {@link #copyFrom copies}
+ * the parent into it, so exploring a node allocates nothing.
+ */
+final class SearchState {
+    static final byte EMPTY = 0;
+    static final byte ASTEROID = 1;
+    static final byte COIN = 2;
+    static final byte ENEMY = 3;
+    static final byte PLAYER = 4;
+
+    private int width;
+    private int height;
+    private byte[] cells = new byte[0];
+    private int enemyCount;
+    private int[] enemyCells = new int[0];
+    private Direction[] enemyDirs = new Direction[0];
+    private boolean[] enemyAlive = new boolean[0];
+    // Cells that held a coin at the root; a coin is still there while its cell says so
+    private int coinCount;
+    private int[] coinCells = new int[0];
+
+    private int playerCell;
+    private Direction playerDir;
+    private boolean playerAlive = true;
+    private int narrowingIn;
+    private int closedRings;
+    private int fireActionCounter;
+
+    /**
+     * Loads {@code turn} into this state, growing its arrays when needed.
+     * {@code fireActionCounter} is the game's fire counter before this turn's move.
+     */
+    void load(TurnContext turn, int fireActionCounter) {
+        Board board = turn.getBoard();
+        width = board.getWidth();
+        height = board.getHeight();
+        int cellCount = width * height;
+        List<Position> enemies = turn.getEnemies();
+        ensureCapacity(cellCount, enemies.size(), turn.getCoins().size());
+
+        long[] coins = board.getCoins();
+        long[] walkable = board.getWalkable();
+        for (int i = 0; i < cellCount; i++) {
+            if (Board.get(coins, i)) {
+                cells[i] = COIN;
+            } else if (Board.get(walkable, i)) {
+                cells[i] = EMPTY;
+            } else {
+                cells[i] = ASTEROID;
+            }
+        }
+
+        coinCount = 0;
+        for (int i = Board.nextSetBit(coins, 0); i >= 0; i = Board.nextSetBit(coins, i + 1)) {
+            coinCells[coinCount++] = i;
+        }
+
+        enemyCount = enemies.size();
+        for (int i = 0; i < enemyCount; i++) {
+            Position enemy = enemies.get(i);
+            enemyCells[i] = board.index(enemy.row, enemy.col);
+            enemyDirs[i] = turn.getEnemyDirection(enemy);
+            enemyAlive[i] = true;
+            cells[enemyCells[i]] = ENEMY;
+        }
+
+        playerCell = board.getPlayerIndex();
+        playerDir = turn.getPlayerDirection();
+        playerAlive = true;
+        cells[playerCell] = PLAYER;
+        narrowingIn = turn.getNarrowingIn();
+        closedRings = countClosedRings();
+        this.fireActionCounter = fireActionCounter;
+    }
+
+    void copyFrom(SearchState other) {
+        width = other.width;
+        height = other.height;
+        ensureCapacity(width * height, other.enemyCount, other.coinCount);
+        System.arraycopy(other.cells, 0, cells, 0, width * height);
+        coinCount = other.coinCount;
+        System.arraycopy(other.coinCells, 0, coinCells, 0, coinCount);
+        enemyCount = other.enemyCount;
+        System.arraycopy(other.enemyCells, 0, enemyCells, 0, enemyCount);
+        System.arraycopy(other.enemyDirs, 0, enemyDirs, 0, enemyCount);
+        System.arraycopy(other.enemyAlive, 0, enemyAlive, 0, enemyCount);
+        playerCell = other.playerCell;
+        playerDir = other.playerDir;
+        playerAlive = other.playerAlive;
+        narrowingIn = other.narrowingIn;
+        closedRings = other.closedRings;
+        fireActionCounter = other.fireActionCounter;
+    }
+
+    private void ensureCapacity(int cellCount, int enemies, int coins) {
+        if (cells.length < cellCount) {
+            cells = new byte[cellCount];
+        }
+        if (coinCells.length < coins) {
+            coinCells = new int[coins];
+        }
+        if (enemyCells.length < enemies) {
+            enemyCells = new int[enemies];
+            enemyDirs = new Direction[enemies];
+            enemyAlive = new boolean[enemies];
+        }
+    }
+
+    boolean isPlayerAlive() {
+        return playerAlive;
+    }
+
+    /**
+     * Whether the next move is the forced shot, leaving F as the only command.
+     */
+    boolean mustFire() {
+        return fireActionCounter % 2 == 0;
+    }
+
+    /**
+     * Plays one full turn: the player's command, the enemies' replies and the narrowing
+     * countdown. Returns the points the player earned during the turn.
+     */
+    double apply(String move) {
+        double gained = 0;
+        switch (move) {
+            case "M" -> {
+                int next = step(playerCell, playerDir);
+                if (next >= 0 && (cells[next] == EMPTY || cells[next] == COIN)) {
+                    if (cells[next] == COIN) {
+                        gained += COIN_SCORE;
+                    }
+                    cells[playerCell] = EMPTY;
+                    cells[next] = PLAYER;
+                    playerCell = next;
+                }
+            }
+            case "L" -> playerDir = playerDir.turnLeft();
+            case "R" -> playerDir = playerDir.turnRight();
+            case "F" -> {
+                int target = firstHit(playerCell, playerDir);
+                if (target >= 0 && cells[target] == ENEMY) {
+                    killEnemyAt(target);
+                    gained += KILL_SCORE;
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown move: " + move);
+        }
+
+        replyEnemies();
+        advanceNarrowing();
+        fireActionCounter++;
+
+        if (playerAlive) {
+            gained += SURVIVAL_SCORE;
+        }
+        return gained;
+    }
+
+    private void replyEnemies() {
+        for (int i = 0; i < enemyCount && playerAlive; i++) {
+            if (!enemyAlive[i]) {
+                continue;
+            }
+            int cell = enemyCells[i];
+            Direction dir = enemyDirs[i];
+
+            if (firstHit(cell, dir) == playerCell) {
+                playerAlive = false;
+                cells[playerCell] = EMPTY;
+                continue;
+            }
+
+            // Turn towards the player when it is in line and within range
+            Direction towards = alignedDirection(cell, playerCell);
+            if (towards != null && towards != dir) {
+                enemyDirs[i] = dir.turnLeft() == towards ? dir.turnLeft() : dir.turnRight();
+                continue;
+            }
+
+            int next = step(cell, dir);
+            if (next >= 0 && (cells[next] == EMPTY || cells[next] == COIN)) {
+                cells[cell] = EMPTY;
+                cells[next] = ENEMY;
+                enemyCells[i] = next;
+            } else {
+                enemyDirs[i] = dir.turnRight();
+            }
+        }
+    }
+
+    private void advanceNarrowing() {
+        if (--narrowingIn > 0) {
+            return;
+        }
+        narrowingIn = NARROWING_INTERVAL;
+        closedRings++;
+        // Inner rings are already closed, so only the new outermost open ring changes
+        int ring = closedRings - 1;
+        int bottom = height - 1 - ring;
+        int right = width - 1 - ring;
+        for (int col = ring; col <= right && ring <= bottom; col++) {
+            close(ring * width + col);
+            close(bottom * width + col);
+        }
+        for (int row = ring + 1; row < bottom && ring <= right; row++) {
+            close(row * width + ring);
+            close(row * width + right);
+        }
+    }
+
+    private void close(int cell) {
+        if (cells[cell] == PLAYER) {
+            playerAlive = false;
+        } else if (cells[cell] == ENEMY) {
+            killEnemyAt(cell);
+        }
+        cells[cell] = ASTEROID;
+    }
+
+    /**
+     * Static evaluation of a position at the search horizon.
+     */
+    double evaluateLeaf() {
+        if (!playerAlive) {
+            return 0;
+        }
+        double score = 0;
+
+        // Standing on the next ring to close shortly before it closes
+        if (narrowingIn <= 2 && wallDistance(playerCell) <= closedRings) {
+            score -= NARROWING_SCORE;
+        }
+
+        // Pull towards the nearest coin so shallow searches still make progress
+        int nearest = Integer.MAX_VALUE;
+        for (int i = 0; i < coinCount; i++) {
+            int coin = coinCells[i];
+            if (cells[coin] == COIN) {
+                nearest = Math.min(nearest, Math.abs(row(coin) - row(playerCell)) + Math.abs(col(coin) - col(playerCell)));
+            }
+        }
+        if (nearest != Integer.MAX_VALUE) {
+            score += COIN_SCORE * 0.5 / (1 + nearest);
+        }
+        return score;
+    }
+
+    private void killEnemyAt(int cell) {
+        for (int i = 0; i < enemyCount; i++) {
+            if (enemyAlive[i] && enemyCells[i] == cell) {
+                enemyAlive[i] = false;
+            }
+        }
+        cells[cell] = EMPTY;
+    }
+
+    /**
+     * Cell hit by a shot from {@code cell} facing {@code dir}: the first non-walkable cell
+     * within {@link caffeine.machines.app.game.GameRules#FIRE_RANGE}, or -1.
+     */
+    private int firstHit(int cell, Direction dir) {
+        int current = cell;
+        for (int i = 0; i < FIRE_RANGE; i++) {
+            current = step(current, dir);
+            if (current < 0) {
+                return -1;
+            }
+            if (cells[current] != EMPTY && cells[current] != COIN) {
+                return current;
+            }
+        }
+        return -1;
+    }
+
+    private Direction alignedDirection(int from, int to) {
+        int dRow = row(to) - row(from);
+        int dCol = col(to) - col(from);
+        if (dRow == 0 && dCol != 0 && Math.abs(dCol) <= FIRE_RANGE) {
+            return dCol > 0 ? Direction.EAST : Direction.WEST;
+        }
+        if (dCol == 0 && dRow != 0 && Math.abs(dRow) <= FIRE_RANGE) {
+            return dRow > 0 ? Direction.SOUTH : Direction.NORTH;
+        }
+        return null;
+    }
+
+    private int step(int cell, Direction dir) {
+        int row = row(cell) + dir.dx;
+        int col = col(cell) + dir.dy;
+        if (row < 0 || row >= height || col < 0 || col >= width) {
+            return -1;
+        }
+        return row * width + col;
+    }
+
+    private int wallDistance(int cell) {
+        int row = row(cell);
+        int col = col(cell);
+        return Math.min(Math.min(row, height - 1 - row), Math.min(col, width - 1 - col));
+    }
+
+    // Outer rings made only of asteroids, walking each ring's perimeter
+    private int countClosedRings() {
+        int maxRings = (Math.min(width, height) + 1) / 2;
+        for (int ring = 0; ring < maxRings; ring++) {
+            int bottom = height - 1 - ring;
+            int right = width - 1 - ring;
+            for (int col = ring; col <= right; col++) {
+                if (cells[ring * width + col] != ASTEROID || cells[bottom * width + col] != ASTEROID) {
+                    return ring;
+                }
+            }
+            for (int row = ring + 1; row < bottom; row++) {
+                if (cells[row * width + ring] != ASTEROID || cells[row * width + right] != ASTEROID) {
+                    return ring;
+                }
+            }
+        }
+        return maxRings;
+    }
+
+    private int row(int cell) {
+        return cell / width;
+    }
+
+    private int col(int cell) {
+        return cell % width;
+    }
+}
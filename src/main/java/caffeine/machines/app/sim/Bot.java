@@ -0,0 +1,12 @@
+package caffeine.machines.app.sim;
+
+import java.util.List;
+
+/**
+ * A player in a simulated match. Receives the same field view the game server sends
+ * to {@code /move} and answers with one of M, L, R or F.
+ */
+public interface Bot {
+
+    String move(List<List<String>> field, int narrowingIn);
+}
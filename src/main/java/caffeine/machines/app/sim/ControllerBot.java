@@ -0,0 +1,29 @@
+package caffeine.machines.app.sim;
+
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveService;
+
+import java.util.List;
+
+/**
+ * Plays with the same decision code as the {@code /move} endpoint, without HTTP.
+ */
+public class ControllerBot implements Bot {
+    private final MoveService moveService;
+    private final GameSession session;
+
+    public ControllerBot(MoveService moveService, int gameId) {
+        this.moveService = moveService;
+        this.session = new GameSession(gameId, System.nanoTime());
+    }
+
+    @Override
+    public String move(List<List<String>> field, int narrowingIn) {
+        try {
+            return moveService.decide(field, narrowingIn, session);
+        } catch (Exception e) {
+            // Same fallback as the controller
+            return "M";
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package caffeine.machines.app.sim;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of latency samples with nearest-rank percentiles.
+ */
+public class LatencyRecorder {
+    private long[] samples;
+    private int count;
+
+    public LatencyRecorder(int initialCapacity) {
+        this.samples = new long[Math.max(16, initialCapacity)];
+    }
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public void recordAll(long[] nanos) {
+        for (long value : nanos) {
+            record(value);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(samples, count);
+    }
+
+    /**
+     * Percentile in [0, 100] of the recorded samples; sorts the samples in place.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(samples, 0, count);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return samples[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+}
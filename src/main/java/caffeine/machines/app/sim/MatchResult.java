@@ -0,0 +1,46 @@
+package caffeine.machines.app.sim;
+
+/**
+ * Outcome of one simulated match: final score per seat, number of turns played and
+ * the latency of every decision in nanoseconds.
+ */
+public class MatchResult {
+    private final double[] scores;
+    private final int turns;
+    private final long[] decisionNanos;
+
+    public MatchResult(double[] scores, int turns, long[] decisionNanos) {
+        this.scores = scores;
+        this.turns = turns;
+        this.decisionNanos = decisionNanos;
+    }
+
+    public double[] getScores() {
+        return scores;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public long[] getDecisionNanos() {
+        return decisionNanos;
+    }
+
+    /**
+     * Seat with the strictly highest score, or -1 on a tie.
+     */
+    public int getWinner() {
+        int winner = 0;
+        boolean tie = false;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[winner]) {
+                winner = i;
+                tie = false;
+            } else if (scores[i] == scores[winner]) {
+                tie = true;
+            }
+        }
+        return tie ? -1 : winner;
+    }
+}
@@ -0,0 +1,268 @@
+package caffeine.machines.app.sim;
+
+import caffeine.machines.app.game.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static caffeine.machines.app.game.GameRules.*;
+
+/**
+ * In-process implementation of the game rules, used to play matches without the game
+ * server.
+ * <p>
+ * All ships act simultaneously each turn: rotations first, then moves (a ship moves only
+ * into a free, uncontested empty or coin cell), then shots from the new positions. A shot
+ * travels up to {@code FIRE_RANGE} cells and destroys the first ship it reaches; asteroids
+ * stop it. Every {@code NARROWING_INTERVAL} turns the outermost open ring turns into
+ * asteroids and destroys what is on it. Collected coins respawn elsewhere.
+ * <p>
+ * Scoring: {@code coin} per coin, {@code kill} per destroyed ship, {@code narrowing} for
+ * every narrowing survived and {@code survival} for being alive when the match ends.
+ */
+public class MatchSimulator {
+    private static final byte EMPTY = 0;
+    private static final byte ASTEROID = 1;
+    private static final byte COIN = 2;
+
+    private final int size;
+    private final int asteroidCount;
+    private final int coinCount;
+    private final int maxTurns;
+
+    public MatchSimulator(int asteroidCount, int coinCount, int maxTurns) {
+        this(FIELD_SIZE, asteroidCount, coinCount, maxTurns);
+    }
+
+    public MatchSimulator(int size, int asteroidCount, int coinCount, int maxTurns) {
+        this.size = size;
+        this.asteroidCount = asteroidCount;
+        this.coinCount = coinCount;
+        this.maxTurns = maxTurns;
+    }
+
+    public MatchResult play(List<Bot> bots, long seed) {
+        Random random = new Random(seed);
+        byte[] cells = new byte[size * size];
+        Ship[] ships = new Ship[bots.size()];
+
+        for (int i = 0; i < ships.length; i++) {
+            ships[i] = new Ship(randomFreeCell(cells, ships, random), Direction.values()[random.nextInt(4)]);
+        }
+        for (int i = 0; i < asteroidCount; i++) {
+            cells[randomFreeCell(cells, ships, random)] = ASTEROID;
+        }
+        for (int i = 0; i < coinCount; i++) {
+            cells[randomFreeCell(cells, ships, random)] = COIN;
+        }
+
+        LatencyRecorder latencies = new LatencyRecorder(maxTurns * ships.length);
+        int narrowingIn = NARROWING_INTERVAL;
+        int closedRings = 0;
+        int turn = 0;
+
+        while (turn < maxTurns && countAlive(ships) > 1 && closedRings < (size + 1) / 2) {
+            turn++;
+
+            String[] moves = new String[ships.length];
+            for (int i = 0; i < ships.length; i++) {
+                if (ships[i].alive) {
+                    List<List<String>> view = render(cells, ships, i);
+                    long start = System.nanoTime();
+                    moves[i] = bots.get(i).move(view, narrowingIn);
+                    latencies.record(System.nanoTime() - start);
+                }
+            }
+
+            resolveTurn(cells, ships, moves, random);
+
+            if (--narrowingIn == 0) {
+                closeRing(cells, ships, closedRings);
+                closedRings++;
+                narrowingIn = NARROWING_INTERVAL;
+            }
+        }
+
+        double[] scores = new double[ships.length];
+        for (int i = 0; i < ships.length; i++) {
+            if (ships[i].alive) {
+                ships[i].score += SURVIVAL_SCORE;
+            }
+            scores[i] = ships[i].score;
+        }
+        return new MatchResult(scores, turn, latencies.toArray());
+    }
+
+    private void resolveTurn(byte[] cells, Ship[] ships, String[] moves, Random random) {
+        for (int i = 0; i < ships.length; i++) {
+            if ("L".equals(moves[i])) {
+                ships[i].dir = ships[i].dir.turnLeft();
+            } else if ("R".equals(moves[i])) {
+                ships[i].dir = ships[i].dir.turnRight();
+            }
+        }
+
+        int[] targets = new int[ships.length];
+        Arrays.fill(targets, -1);
+        for (int i = 0; i < ships.length; i++) {
+            if ("M".equals(moves[i])) {
+                int next = step(ships[i].cell, ships[i].dir);
+                if (next >= 0 && cells[next] != ASTEROID && shipAt(ships, next) < 0) {
+                    targets[i] = next;
+                }
+            }
+        }
+        for (int i = 0; i < ships.length; i++) {
+            if (targets[i] < 0) {
+                continue;
+            }
+            boolean contested = false;
+            for (int j = 0; j < ships.length; j++) {
+                contested |= j != i && targets[j] == targets[i];
+            }
+            if (!contested) {
+                ships[i].cell = targets[i];
+                if (cells[targets[i]] == COIN) {
+                    cells[targets[i]] = EMPTY;
+                    ships[i].score += COIN_SCORE;
+                    int respawn = randomFreeCell(cells, ships, random);
+                    if (respawn >= 0) {
+                        cells[respawn] = COIN;
+                    }
+                }
+            }
+        }
+
+        boolean[] hit = new boolean[ships.length];
+        for (int i = 0; i < ships.length; i++) {
+            if ("F".equals(moves[i])) {
+                int target = shoot(cells, ships, i);
+                if (target >= 0) {
+                    hit[target] = true;
+                    ships[i].score += KILL_SCORE;
+                }
+            }
+        }
+        for (int i = 0; i < ships.length; i++) {
+            if (hit[i]) {
+                ships[i].alive = false;
+            }
+        }
+    }
+
+    private int shoot(byte[] cells, Ship[] ships, int shooter) {
+        int current = ships[shooter].cell;
+        for (int i = 0; i < FIRE_RANGE; i++) {
+            current = step(current, ships[shooter].dir);
+            if (current < 0 || cells[current] == ASTEROID) {
+                return -1;
+            }
+            int ship = shipAt(ships, current);
+            if (ship >= 0) {
+                return ship;
+            }
+        }
+        return -1;
+    }
+
+    private void closeRing(byte[] cells, Ship[] ships, int ring) {
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (wallDistance(cell) <= ring) {
+                cells[cell] = ASTEROID;
+            }
+        }
+        for (Ship ship : ships) {
+            if (!ship.alive) {
+                continue;
+            }
+            if (wallDistance(ship.cell) <= ring) {
+                ship.alive = false;
+            } else {
+                ship.score += NARROWING_SCORE;
+            }
+        }
+    }
+
+    /**
+     * The field as the game server would send it to ship {@code self}.
+     */
+    private List<List<String>> render(byte[] cells, Ship[] ships, int self) {
+        List<List<String>> field = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            List<String> line = new ArrayList<>(size);
+            for (int col = 0; col < size; col++) {
+                int cell = row * size + col;
+                int ship = shipAt(ships, cell);
+                if (ship >= 0) {
+                    line.add((ship == self ? "P" : "E") + ships[ship].dir.symbol);
+                } else if (cells[cell] == ASTEROID) {
+                    line.add("*");
+                } else if (cells[cell] == COIN) {
+                    line.add("C");
+                } else {
+                    line.add("");
+                }
+            }
+            field.add(line);
+        }
+        return field;
+    }
+
+    private int randomFreeCell(byte[] cells, Ship[] ships, Random random) {
+        for (int attempt = 0; attempt < cells.length * 4; attempt++) {
+            int cell = random.nextInt(cells.length);
+            if (cells[cell] == EMPTY && shipAt(ships, cell) < 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private static int shipAt(Ship[] ships, int cell) {
+        for (int i = 0; i < ships.length; i++) {
+            if (ships[i] != null && ships[i].alive && ships[i].cell == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int countAlive(Ship[] ships) {
+        int alive = 0;
+        for (Ship ship : ships) {
+            if (ship.alive) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    private int step(int cell, Direction dir) {
+        int row = cell / size + dir.dx;
+        int col = cell % size + dir.dy;
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            return -1;
+        }
+        return row * size + col;
+    }
+
+    private int wallDistance(int cell) {
+        int row = cell / size;
+        int col = cell % size;
+        return Math.min(Math.min(row, size - 1 - row), Math.min(col, size - 1 - col));
+    }
+
+    private static final class Ship {
+        int cell;
+        Direction dir;
+        boolean alive = true;
+        double score;
+
+        Ship(int cell, Direction dir) {
+            this.cell = cell;
+            this.dir = dir;
+        }
+    }
+}
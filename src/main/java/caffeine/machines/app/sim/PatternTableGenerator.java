@@ -0,0 +1,112 @@
+package caffeine.machines.app.sim;
+
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.MoveService;
+import caffeine.machines.app.game.PatternTable;
+import caffeine.machines.app.game.TurnContext;
+import caffeine.machines.app.replay.ReplayReader;
+import caffeine.machines.app.search.LookaheadSearch;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the {@link PatternTable} file from the neighbourhoods the controller meets in
+ * simulated matches and, optionally, in recorded replay segments.
+ * <p>
+ * Usage: {@code ./mvnw compile exec:java -Dexec.mainClass=caffeine.machines.app.sim.PatternTableGenerator
+ * -Dexec.args="--out=patterns.bin --games=2000 replays/"}
+ * <p>
+ * Options: {@code --out} (default {@code patterns.bin}), {@code --games} simulated against
+ * the random bot (default 1000), {@code --seed}, {@code --max-entries} kept in the table,
+ * the most frequent first (default 1000000), and {@code --asteroids}, {@code --coins} and
+ * {@code --max-turns} as for {@link SelfPlayRunner}. Other arguments are segment files or
+ * directories of segments.
+ */
+public class PatternTableGenerator {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<Path> segments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                options.putAll(SelfPlayRunner.parseOptions(new String[]{arg}));
+            } else {
+                segments.addAll(ReplayReader.segments(Path.of(arg)));
+            }
+        }
+        Path out = Path.of(options.getOrDefault("out", "patterns.bin"));
+        int games = Integer.parseInt(options.getOrDefault("games", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int maxEntries = Integer.parseInt(options.getOrDefault("max-entries", "1000000"));
+        MatchSimulator simulator = new MatchSimulator(
+                Integer.parseInt(options.getOrDefault("asteroids", "15")),
+                Integer.parseInt(options.getOrDefault("coins", "8")),
+                Integer.parseInt(options.getOrDefault("max-turns", "200")));
+
+        // A short search is enough: the table only depends on the positions reached
+        MoveService moveService = new MoveService(new LookaheadSearch(Duration.ofMillis(1), 3), new DecisionCache(0));
+        PatternTable.Builder builder = new PatternTable.Builder();
+        long start = System.nanoTime();
+        long turns = 0;
+        for (int game = 0; game < games; game++) {
+            long matchSeed = seed * 1_000_003L + game;
+            Recording controller = new Recording(new ControllerBot(moveService, game), builder);
+            Bot other = new RandomBot(matchSeed);
+            simulator.play(game % 2 == 0 ? List.of(controller, other) : List.of(other, controller), matchSeed);
+            turns += controller.turns;
+        }
+        for (Path segment : segments) {
+            long[] replayed = new long[1];
+            ReplayReader.read(segment, turn -> {
+                if (add(builder, turn.getField(), turn.getNarrowingIn())) {
+                    replayed[0]++;
+                }
+            });
+            turns += replayed[0];
+        }
+
+        int written = builder.write(out, maxEntries);
+        System.out.printf("games=%d segments=%d turns=%d elapsed=%.2fs%n",
+                games, segments.size(), turns, (System.nanoTime() - start) / 1e9);
+        System.out.printf("patterns: seen=%d conflicting=%d written=%d to %s%n",
+                builder.size(), builder.getConflicts(), written, out);
+    }
+
+    private static boolean add(PatternTable.Builder builder, FieldGrid field, int narrowingIn) {
+        if (field.getWidth() != field.getHeight() || field.getWidth() == 0) {
+            return false;
+        }
+        try {
+            builder.add(TurnContext.parse(field, field.getWidth(), narrowingIn));
+            return true;
+        } catch (IllegalStateException e) {
+            // No player on the field, e.g. after it was destroyed
+            return false;
+        }
+    }
+
+    // Adds every field the controller is asked about before it answers
+    private static final class Recording implements Bot {
+        private final Bot delegate;
+        private final PatternTable.Builder builder;
+        private long turns;
+
+        Recording(Bot delegate, PatternTable.Builder builder) {
+            this.delegate = delegate;
+            this.builder = builder;
+        }
+
+        @Override
+        public String move(List<List<String>> field, int narrowingIn) {
+            if (add(builder, FieldGrid.of(field), narrowingIn)) {
+                turns++;
+            }
+            return delegate.move(field, narrowingIn);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package caffeine.machines.app.sim;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Baseline opponent that picks uniformly among the four commands.
+ */
+public class RandomBot implements Bot {
+    private static final String[] MOVES = {"M", "L", "R", "F"};
+
+    private final Random random;
+
+    public RandomBot(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public String move(List<List<String>> field, int narrowingIn) {
+        return MOVES[random.nextInt(MOVES.length)];
+    }
+}
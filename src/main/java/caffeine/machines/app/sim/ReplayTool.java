@@ -0,0 +1,167 @@
+package caffeine.machines.app.sim;
+
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveService;
+import caffeine.machines.app.replay.ReplayReader;
+import caffeine.machines.app.replay.ReplayTurn;
+import caffeine.machines.app.search.LookaheadSearch;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams recorded replay segments back through the decision code and reports how many
+ * moves differ from the recorded ones and how the decision latency compares.
+ * <p>
+ * Usage: {@code ./mvnw compile exec:java -Dexec.mainClass=caffeine.machines.app.sim.ReplayTool
+ * -Dexec.args="--threads=8 replays/"}
+ * <p>
+ * Arguments are segment files or directories of segments. Turns are partitioned by
+ * {@code gameId} over {@code --threads} workers (default: all cores), so every game is
+ * replayed in order with its own session. Options: {@code --search-budget-ms},
+ * {@code --search-depth}, {@code --cache-size} and {@code --verbose} to print every
+ * differing move.
+ */
+public class ReplayTool {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<Path> segments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                options.putAll(SelfPlayRunner.parseOptions(new String[]{arg}));
+            } else {
+                segments.addAll(ReplayReader.segments(Path.of(arg)));
+            }
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("No replay segments given");
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Duration budget = Duration.ofMillis(Long.parseLong(options.getOrDefault("search-budget-ms", "15")));
+        int depth = Integer.parseInt(options.getOrDefault("search-depth", "6"));
+        boolean verbose = options.containsKey("verbose");
+
+        MoveService moveService = new MoveService(new LookaheadSearch(budget, depth),
+                new DecisionCache(Long.parseLong(options.getOrDefault("cache-size", "100000"))));
+
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(moveService, verbose);
+            workers[i].start();
+        }
+
+        long start = System.nanoTime();
+        for (Path segment : segments) {
+            ReplayReader.read(segment, turn -> workers[Math.floorMod(turn.getGameId(), threads)].submit(turn));
+        }
+        for (Worker worker : workers) {
+            worker.finish();
+        }
+
+        long turns = 0;
+        long differences = 0;
+        LatencyRecorder recorded = new LatencyRecorder(1024);
+        LatencyRecorder replayed = new LatencyRecorder(1024);
+        for (Worker worker : workers) {
+            worker.join();
+            turns += worker.turns;
+            differences += worker.differences;
+            recorded.recordAll(worker.recorded.toArray());
+            replayed.recordAll(worker.replayed.toArray());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("segments=%d turns=%d threads=%d elapsed=%.2fs (%.0f turns/s)%n",
+                segments.size(), turns, threads, seconds, turns / seconds);
+        System.out.printf("moves differing from the recording: %d (%.2f%%)%n",
+                differences, turns == 0 ? 0.0 : 100.0 * differences / turns);
+        printLatency("recorded", recorded);
+        printLatency("replayed", replayed);
+    }
+
+    private static void printLatency(String label, LatencyRecorder latencies) {
+        System.out.printf("%s decision latency (us): p50=%.1f p90=%.1f p99=%.1f max=%.1f%n", label,
+                latencies.percentile(50) / 1e3, latencies.percentile(90) / 1e3,
+                latencies.percentile(99) / 1e3, latencies.percentile(100) / 1e3);
+    }
+
+    private static final class Worker extends Thread {
+        private static final Object DONE = new Object();
+
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(4096);
+        private final Map<Integer, GameSession> sessions = new HashMap<>();
+        private final MoveService moveService;
+        private final boolean verbose;
+        private final LatencyRecorder recorded = new LatencyRecorder(1024);
+        private final LatencyRecorder replayed = new LatencyRecorder(1024);
+        private long turns;
+        private long differences;
+
+        Worker(MoveService moveService, boolean verbose) {
+            super("replay-worker");
+            this.moveService = moveService;
+            this.verbose = verbose;
+        }
+
+        void submit(ReplayTurn turn) {
+            put(turn);
+        }
+
+        void finish() {
+            put(DONE);
+        }
+
+        private void put(Object item) {
+            try {
+                // Bounded, so a large recording is streamed instead of loaded
+                queue.put(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Object next = queue.take();
+                    if (next == DONE) {
+                        return;
+                    }
+                    replay((ReplayTurn) next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void replay(ReplayTurn turn) {
+            GameSession session = sessions.computeIfAbsent(turn.getGameId(), id -> new GameSession(id, System.nanoTime()));
+            long start = System.nanoTime();
+            String move;
+            try {
+                move = moveService.decide(turn.getField(), turn.getNarrowingIn(), session);
+            } catch (RuntimeException e) {
+                move = "M";
+            }
+            replayed.record(System.nanoTime() - start);
+            recorded.record(turn.getDecisionNanos());
+            turns++;
+            if (!move.equals(turn.getMove())) {
+                differences++;
+                if (verbose) {
+                    System.out.printf("game %d narrowingIn=%d: recorded %s, replayed %s%n",
+                            turn.getGameId(), turn.getNarrowingIn(), turn.getMove(), move);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package caffeine.machines.app.sim;
+
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.MoveMetrics;
+import caffeine.machines.app.game.MoveService;
+import caffeine.machines.app.replay.ReplayRecorder;
+import caffeine.machines.app.search.LookaheadSearch;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many simulated matches in parallel and reports throughput, win rate and
+ * decision latency of the controller bot.
+ * <p>
+ * Usage: {@code ./mvnw compile exec:java -Dexec.mainClass=caffeine.machines.app.sim.SelfPlayRunner
+ * -Dexec.args="--games=2000 --opponent=random"}
+ * <p>
+ * Options: {@code --games}, {@code --threads} (default: all cores), {@code --opponent}
+ * ({@code random} or {@code self}), {@code --seed}, {@code --search-budget-ms},
+ * {@code --search-depth}, {@code --cache-size}, {@code --asteroids}, {@code --coins},
+ * {@code --max-turns}, {@code --record=<dir>} to write the controller's decisions as replay
+ * segments for {@link ReplayTool}, and {@code --verbose} to log every decision.
+ */
+public class SelfPlayRunner {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int games = Integer.parseInt(options.getOrDefault("games", "1000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String opponent = options.getOrDefault("opponent", "random");
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        Duration budget = Duration.ofMillis(Long.parseLong(options.getOrDefault("search-budget-ms", "2")));
+        int depth = Integer.parseInt(options.getOrDefault("search-depth", "4"));
+        MatchSimulator simulator = new MatchSimulator(
+                Integer.parseInt(options.getOrDefault("asteroids", "15")),
+                Integer.parseInt(options.getOrDefault("coins", "8")),
+                Integer.parseInt(options.getOrDefault("max-turns", "200")));
+
+        PrintStream report = System.out;
+        if (options.containsKey("verbose")) {
+            // Read by logback.xml; must be set before the first logger is created
+            System.setProperty("game.log.level", "DEBUG");
+        }
+
+        long cacheSize = Long.parseLong(options.getOrDefault("cache-size", "100000"));
+        DecisionCache cache = new DecisionCache(cacheSize);
+        ReplayRecorder recorder = options.containsKey("record")
+                ? new ReplayRecorder(Path.of(options.get("record")), 64L << 20) : ReplayRecorder.disabled();
+        MoveService moveService = new MoveService(new LookaheadSearch(budget, depth), cache, MoveMetrics.standalone(), recorder);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<MatchResult>> results = new ArrayList<>(games);
+            for (int game = 0; game < games; game++) {
+                final int gameId = game;
+                results.add(pool.submit(() -> playOne(simulator, moveService, opponent, gameId, seed)));
+            }
+
+            int wins = 0;
+            int losses = 0;
+            int draws = 0;
+            long turns = 0;
+            LatencyRecorder latencies = new LatencyRecorder(games * 400);
+            for (int game = 0; game < games; game++) {
+                MatchResult result = results.get(game).get();
+                // The controller bot sits in seat 0 on even games and seat 1 on odd ones
+                int seat = game % 2;
+                int winner = result.getWinner();
+                if (winner < 0) {
+                    draws++;
+                } else if (winner == seat) {
+                    wins++;
+                } else {
+                    losses++;
+                }
+                turns += result.getTurns();
+                latencies.recordAll(result.getDecisionNanos());
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report.printf("games=%d threads=%d opponent=%s elapsed=%.2fs%n", games, threads, opponent, seconds);
+            report.printf("throughput: %.1f games/s, %.0f decisions/s, %.1f turns/game%n",
+                    games / seconds, latencies.getCount() / seconds, (double) turns / games);
+            report.printf("controller: win=%.1f%% loss=%.1f%% draw=%.1f%%%n",
+                    100.0 * wins / games, 100.0 * losses / games, 100.0 * draws / games);
+            report.printf("decision latency (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    latencies.percentile(50) / 1e3, latencies.percentile(90) / 1e3, latencies.percentile(99) / 1e3,
+                    latencies.percentile(99.9) / 1e3, latencies.percentile(100) / 1e3);
+            report.printf("decision cache: hits=%d misses=%d%n", cache.getHitCount(), cache.getMissCount());
+        } finally {
+            pool.shutdownNow();
+            recorder.close();
+        }
+    }
+
+    private static MatchResult playOne(MatchSimulator simulator, MoveService moveService, String opponent, int game, long seed) {
+        long matchSeed = seed * 1_000_003L + game;
+        // Distinct game ids, so recorded and replayed turns of the two controllers stay apart
+        Bot controller = new ControllerBot(moveService, 2 * game);
+        Bot other = "self".equals(opponent) ? new ControllerBot(moveService, 2 * game + 1) : new RandomBot(matchSeed);
+        List<Bot> bots = game % 2 == 0 ? List.of(controller, other) : List.of(other, controller);
+        return simulator.play(bots, matchSeed);
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,73 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.Board;
+import caffeine.machines.app.game.Direction;
+import caffeine.machines.app.game.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTest {
+
+    @Test
+    void parse_ShouldSplitCellsIntoMasks() {
+        Board board = Board.parse(field(new String[][]{{"0", "0", "*"}, {"1", "1", "EN"}, {"4", "6", "C"}, {"6", "6", "PS"}}), 13);
+
+        assertTrue(board.isAsteroid(0, 0));
+        assertTrue(board.isEnemy(1, 1));
+        assertTrue(board.isCoin(4, 6));
+        assertTrue(board.isWalkable(4, 6));
+        assertFalse(board.isEmpty(4, 6));
+        assertFalse(board.isWalkable(6, 6));
+        assertEquals(board.index(6, 6), board.getPlayerIndex());
+        assertEquals(List.of(new Position(1, 1)), board.positions(board.getEnemies()));
+    }
+
+    @Test
+    void shift_ShouldNotWrapAcrossRowsOrWords() {
+        Board board = new Board(13, 13);
+
+        long[] rightEdge = board.single(board.index(4, 12));
+        assertTrue(Board.isZero(board.shift(rightEdge, Direction.EAST)));
+        assertEquals(List.of(new Position(4, 11)), board.positions(board.shift(rightEdge, Direction.WEST)));
+
+        // Row 4 to row 5 crosses the first 64-bit word boundary
+        assertEquals(List.of(new Position(5, 12)), board.positions(board.shift(rightEdge, Direction.SOUTH)));
+        assertTrue(Board.isZero(board.shift(board.single(board.index(12, 3)), Direction.SOUTH)));
+        assertTrue(Board.isZero(board.shift(board.single(board.index(0, 3)), Direction.NORTH)));
+    }
+
+    @Test
+    void fireLine_ShouldStopAtFirstBlockedCell() {
+        Board board = Board.parse(field(new String[][]{{"6", "3", "*"}}), 13);
+
+        List<Position> hit = board.positions(board.fireLine(6, 0, Direction.EAST, 4));
+
+        assertEquals(List.of(new Position(6, 1), new Position(6, 2), new Position(6, 3)), hit);
+    }
+
+    @Test
+    void hasAdjacentAsteroid_ShouldIncludeDiagonals() {
+        Board board = Board.parse(field(new String[][]{{"5", "5", "*"}}), 13);
+
+        assertTrue(board.hasAdjacentAsteroid(4, 4));
+        assertTrue(board.hasAdjacentAsteroid(6, 5));
+        assertFalse(board.hasAdjacentAsteroid(5, 5));
+        assertFalse(board.hasAdjacentAsteroid(5, 7));
+    }
+
+    private static List<List<String>> field(String[][] cells) {
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < 13; row++) {
+            field.add(new ArrayList<>(Collections.nCopies(13, "")));
+        }
+        for (String[] cell : cells) {
+            field.get(Integer.parseInt(cell[0])).set(Integer.parseInt(cell[1]), cell[2]);
+        }
+        return field;
+    }
+}
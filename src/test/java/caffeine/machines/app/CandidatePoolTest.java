@@ -0,0 +1,76 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.CandidatePool;
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandidatePoolTest {
+
+    @Test
+    void best_ShouldMatchSequentialPickIncludingTies() {
+        try (CandidatePool pool = new CandidatePool(4, 8)) {
+            Random random = new Random(5);
+            for (int round = 0; round < 200; round++) {
+                // Few distinct values, so equal scores are common
+                double[] scores = new double[1 + random.nextInt(500)];
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] = random.nextInt(6);
+                }
+                double floor = random.nextInt(3);
+
+                CandidatePool.Pick expected = CandidatePool.sequential().best(scores.length, floor, (i, toBeat) -> scores[i], () -> false);
+                CandidatePool.Pick actual = pool.best(scores.length, floor, (i, toBeat) -> scores[i], () -> false);
+                assertEquals(expected.getIndex(), actual.getIndex());
+                assertEquals(expected.getScore(), actual.getScore());
+                assertFalse(actual.isStopped());
+            }
+        }
+    }
+
+    @Test
+    void best_ShouldReportStopWithoutScoringRest() {
+        try (CandidatePool pool = new CandidatePool(4, 8)) {
+            AtomicInteger scored = new AtomicInteger();
+            CandidatePool.Pick pick = pool.best(1_000, 0, (i, toBeat) -> scored.incrementAndGet(), () -> true);
+
+            assertTrue(pick.isStopped());
+            assertEquals(-1, pick.getIndex());
+            assertEquals(0, scored.get());
+        }
+    }
+
+    @Test
+    void calculateMove_ShouldNotDependOnParallelScoring() {
+        try (CandidatePool pool = new CandidatePool(4, 16)) {
+            Random random = new Random(9);
+            for (int game = 0; game < 20; game++) {
+                FieldGrid grid = crowdedField(60, random);
+                String sequential = new MoveCalculator(grid, new GameSession(game, 0), null, null, null, null).calculateMove(12);
+                String parallel = new MoveCalculator(grid, new GameSession(game, 0), null, null, null, pool).calculateMove(12);
+                assertEquals(sequential, parallel);
+            }
+        }
+    }
+
+    // Coins walled in by asteroids are unreachable, so the strategic tier decides
+    private static FieldGrid crowdedField(int size, Random random) {
+        byte[] cells = new byte[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            int roll = random.nextInt(100);
+            cells[i] = roll < 25 ? FieldGrid.ASTEROID : roll < 30 ? FieldGrid.encode("ES") : roll < 33 ? FieldGrid.COIN : FieldGrid.EMPTY;
+        }
+        int player = (size / 2) * size + size / 2;
+        cells[player] = FieldGrid.encode("PN");
+        for (int neighbour : new int[]{player - size, player + size, player - 1, player + 1}) {
+            cells[neighbour] = FieldGrid.ASTEROID;
+        }
+        return new FieldGrid(size, size, cells);
+    }
+}
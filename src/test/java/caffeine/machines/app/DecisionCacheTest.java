@@ -0,0 +1,78 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveCalculator;
+import caffeine.machines.app.game.SpaceTimePlanner;
+import caffeine.machines.app.game.TurnContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionCacheTest {
+
+    @Test
+    void key_ShouldDependOnFacingAndNarrowingPhase() {
+        List<List<String>> north = field("PN");
+        List<List<String>> east = field("PE");
+
+        long base = DecisionCache.key(TurnContext.parse(north, 13, 15));
+
+        assertEquals(base, DecisionCache.key(TurnContext.parse(field("PN"), 13, 15)));
+        assertNotEquals(base, DecisionCache.key(TurnContext.parse(east, 13, 15)));
+        assertNotEquals(base, DecisionCache.key(TurnContext.parse(north, 13, 1)));
+        // The route planner sees a narrowing within its horizon
+        assertNotEquals(base, DecisionCache.key(TurnContext.parse(north, 13, 19)));
+        // Beyond the horizon every countdown falls into one bucket
+        assertEquals(DecisionCache.key(TurnContext.parse(north, 13, SpaceTimePlanner.DEFAULT_HORIZON + 1)),
+                DecisionCache.key(TurnContext.parse(north, 13, 100)));
+    }
+
+    @Test
+    void key_ShouldDependOnBoardSize() {
+        // The same flat cell indices on a 13x13 and a 15x15 board
+        List<List<String>> small = emptyField(13);
+        List<List<String>> large = emptyField(15);
+        for (int cell : new int[]{0, 1, 20}) {
+            small.get(cell / 13).set(cell % 13, "*");
+            large.get(cell / 15).set(cell % 15, "*");
+        }
+        small.get(40 / 13).set(40 % 13, "PN");
+        large.get(40 / 15).set(40 % 15, "PN");
+
+        assertNotEquals(DecisionCache.key(TurnContext.parse(small, 13, 15)), DecisionCache.key(TurnContext.parse(large, 15, 15)));
+    }
+
+    @Test
+    void calculateMove_ShouldReuseDecisionAcrossGames() {
+        DecisionCache cache = new DecisionCache(100);
+
+        String first = new MoveCalculator(field("PN"), new GameSession(1, 0), null, cache).calculateMove(15);
+        String second = new MoveCalculator(field("PN"), new GameSession(2, 0), null, cache).calculateMove(15);
+
+        assertEquals(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    private static List<List<String>> field(String player) {
+        List<List<String>> field = emptyField(13);
+        field.get(6).set(6, player);
+        field.get(2).set(9, "C");
+        field.get(3).set(3, "*");
+        field.get(10).set(1, "ES");
+        return field;
+    }
+
+    private static List<List<String>> emptyField(int size) {
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            field.add(new ArrayList<>(Collections.nCopies(size, "")));
+        }
+        return field;
+    }
+}
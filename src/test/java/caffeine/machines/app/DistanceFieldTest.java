@@ -0,0 +1,75 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.Board;
+import caffeine.machines.app.game.DistanceField;
+import caffeine.machines.app.game.Direction;
+import caffeine.machines.app.game.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceFieldTest {
+
+    @Test
+    void getDistance_ShouldCountRotationsAsTurns() {
+        DistanceField distances = new DistanceField(emptyBoard(), new Position(6, 6), Direction.NORTH);
+
+        assertEquals(2, distances.getDistance(4, 6));
+        assertEquals(3, distances.getDistance(6, 8));
+        assertEquals(4, distances.getDistance(8, 6));
+        assertEquals("M", distances.getFirstMove(4, 6));
+        assertEquals("R", distances.getFirstMove(6, 8));
+        assertEquals("L", distances.getFirstMove(6, 4));
+    }
+
+    @Test
+    void getDistance_ShouldRouteAroundAsteroids() {
+        List<List<String>> field = emptyField();
+        field.get(5).set(6, "*");
+        DistanceField distances = new DistanceField(Board.parse(field, 13), new Position(6, 6), Direction.NORTH);
+
+        // Around the asteroid: R, M, L, M, M, L, M
+        assertEquals(7, distances.getDistance(4, 6));
+        assertFalse(distances.isReachable(5, 6));
+        assertEquals(DistanceField.UNREACHABLE, distances.getDistance(5, 6));
+    }
+
+    @Test
+    void nearest_ShouldPreferFewestTurnsThenLowestCell() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(10, "C");
+        field.get(2).set(6, "C");
+        field.get(4).set(6, "C");
+        field.get(6).set(2, "C");
+        Board board = Board.parse(field, 13);
+        DistanceField distances = new DistanceField(board, new Position(6, 6), Direction.NORTH);
+
+        assertEquals(board.index(4, 6), distances.nearest(board.getCoins()));
+        // Left and right both take five turns; row-major order decides
+        field.get(4).set(6, "");
+        field.get(2).set(6, "");
+        field.get(6).set(10, "");
+        field.get(6).set(8, "C");
+        field.get(6).set(4, "C");
+        board = Board.parse(field, 13);
+        distances = new DistanceField(board, new Position(6, 6), Direction.NORTH);
+        assertEquals(board.index(6, 4), distances.nearest(board.getCoins()));
+        assertEquals(-1, distances.nearest(new long[board.getCoins().length]));
+    }
+
+    private static Board emptyBoard() {
+        return Board.parse(emptyField(), 13);
+    }
+
+    private static List<List<String>> emptyField() {
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < 13; row++) {
+            field.add(new ArrayList<>(Collections.nCopies(13, "")));
+        }
+        return field;
+    }
+}
@@ -0,0 +1,52 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.controller.SpaceshipController;
+import caffeine.machines.app.game.Direction;
+import caffeine.machines.app.game.FieldGrid;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FieldGridTest {
+
+    @Test
+    void encode_ShouldFollowProtocolStringRules() {
+        FieldGrid grid = FieldGrid.of(List.of(
+                List.of("", "*", "C", "Enorth", "P W"),
+                List.of("E", "*x", "A", "ES", "?")));
+
+        assertEquals(FieldGrid.EMPTY, FieldGrid.kind(grid.get(0, 0)));
+        assertEquals(FieldGrid.ASTEROID, FieldGrid.kind(grid.get(0, 1)));
+        assertEquals(FieldGrid.COIN, FieldGrid.kind(grid.get(0, 2)));
+        assertEquals(Direction.NORTH, FieldGrid.direction(grid.get(0, 3)));
+        assertEquals(FieldGrid.PLAYER, FieldGrid.kind(grid.get(0, 4)));
+        assertEquals(Direction.WEST, FieldGrid.direction(grid.get(0, 4)));
+        assertEquals(FieldGrid.ENEMY, FieldGrid.kind(grid.get(1, 0)));
+        assertNull(FieldGrid.direction(grid.get(1, 0)));
+        // Only the exact "*" is an asteroid by symbol; anything starting with 'A' is one too
+        assertEquals(FieldGrid.UNKNOWN, FieldGrid.kind(grid.get(1, 1)));
+        assertEquals(FieldGrid.ASTEROID, FieldGrid.kind(grid.get(1, 2)));
+        assertEquals(Direction.SOUTH, FieldGrid.direction(grid.get(1, 3)));
+        assertEquals(FieldGrid.UNKNOWN, FieldGrid.kind(grid.get(1, 4)));
+    }
+
+    @Test
+    void deserializer_ShouldDecodeSameGridAsStringRows() throws Exception {
+        String json = "{\"extra\":{\"a\":[1,2]},\"narrowingIn\":7,\"field\":"
+                + "[[\"\",\"PN\",\"C\"],[\"EwesT\",\"*\",\"\"]],\"gameId\":42}";
+
+        SpaceshipController.GameState state = new ObjectMapper().readValue(json, SpaceshipController.GameState.class);
+
+        assertEquals(42, state.getGameId());
+        assertEquals(7, state.getNarrowingIn());
+        assertEquals(3, state.getField().getWidth());
+        assertEquals(2, state.getField().getHeight());
+        assertEquals(FieldGrid.of(List.of(List.of("", "PN", "C"), List.of("EwesT", "*", ""))).toRows(),
+                state.getField().toRows());
+        assertEquals(Direction.WEST, FieldGrid.direction(state.getField().get(1, 0)));
+    }
+}
@@ -0,0 +1,114 @@
+package caffeine.machines.app;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GameChannelTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void channel_ShouldAnswerSnapshotAndDiffs() throws Exception {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(replies);
+        try {
+            session.sendMessage(new TextMessage(SpaceshipControllerTest.gameState(601)));
+            assertTrue(replies.poll(5, TimeUnit.SECONDS).matches("\\{\"move\":\"[MLR]\"}"));
+
+            // Second turn of the game fires; the player moved one cell north
+            session.sendMessage(new TextMessage("{\"narrowingIn\":14,\"diff\":[[6,6,\"\"],[5,6,\"PN\"]]}"));
+            assertEquals("{\"move\":\"F\"}", replies.poll(5, TimeUnit.SECONDS));
+
+            session.sendMessage(new TextMessage("{\"narrowingIn\":13,\"diff\":[[40,0,\"C\"]]}"));
+            assertTrue(replies.poll(5, TimeUnit.SECONDS).startsWith("{\"error\":"));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void channel_ShouldRequireSnapshotBeforeDiffs() throws Exception {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(replies);
+        try {
+            session.sendMessage(new TextMessage("{\"narrowingIn\":14,\"diff\":[[5,6,\"PN\"]]}"));
+            assertEquals("{\"error\":\"snapshot required\"}", replies.poll(5, TimeUnit.SECONDS));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void channel_ShouldRequireCountdownInSnapshotOnly() throws Exception {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(replies);
+        try {
+            session.sendMessage(new TextMessage(SpaceshipControllerTest.gameState(602).replace("\"narrowingIn\":15,", "")));
+            assertEquals("{\"error\":\"narrowingIn required\"}", replies.poll(5, TimeUnit.SECONDS));
+
+            session.sendMessage(new TextMessage(SpaceshipControllerTest.gameState(602)));
+            assertTrue(replies.poll(5, TimeUnit.SECONDS).startsWith("{\"move\":"));
+            session.sendMessage(new TextMessage("{\"diff\":[[6,6,\"\"],[5,6,\"PN\"]]}"));
+            assertEquals("{\"move\":\"F\"}", replies.poll(5, TimeUnit.SECONDS));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void channel_ShouldAcceptSnapshotOfLargestField() throws Exception {
+        int size = 128;
+        StringBuilder json = new StringBuilder("{\"gameId\":603,\"narrowingIn\":15,\"field\":[");
+        for (int row = 0; row < size; row++) {
+            json.append(row == 0 ? "[" : ",[");
+            for (int col = 0; col < size; col++) {
+                json.append(col == 0 ? "" : ",").append(row == size / 2 && col == size / 2 ? "\"PN\"" : "\"\"");
+            }
+            json.append(']');
+        }
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(replies);
+        try {
+            session.sendMessage(new TextMessage(json.append("]}").toString()));
+            assertTrue(replies.poll(10, TimeUnit.SECONDS).startsWith("{\"move\":"));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void channel_ShouldRejectOtherOrigins() {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setOrigin("http://elsewhere.example");
+        assertThrows(ExecutionException.class, () -> new StandardWebSocketClient()
+                .execute(new TextWebSocketHandler(), headers, URI.create("ws://localhost:" + port + "/ws/game"))
+                .get(5, TimeUnit.SECONDS));
+    }
+
+    private WebSocketSession connect(BlockingQueue<String> replies) throws Exception {
+        return new StandardWebSocketClient().execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                replies.add(message.getPayload());
+            }
+        }, "ws://localhost:" + port + "/ws/game").get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,57 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.GameSessionStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSessionStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void getOrCreate_ShouldReturnSameSessionForSameGame() {
+        GameSessionStore store = new GameSessionStore(8, Duration.ofMinutes(1), clock::get);
+
+        GameSession first = store.getOrCreate(1);
+        first.incrementFireActionCounter();
+
+        assertSame(first, store.getOrCreate(1));
+        assertNotSame(first, store.getOrCreate(2));
+        assertEquals(1, store.getOrCreate(2).getFireActionCounter());
+    }
+
+    @Test
+    void getOrCreate_ShouldEvictLeastRecentlyUsedWhenFull() {
+        GameSessionStore store = new GameSessionStore(2, Duration.ofMinutes(1), clock::get);
+
+        store.getOrCreate(1);
+        clock.addAndGet(10);
+        store.getOrCreate(2);
+        clock.addAndGet(10);
+        store.getOrCreate(1);
+        clock.addAndGet(10);
+        store.getOrCreate(3);
+
+        assertEquals(2, store.size());
+        assertNotNull(store.get(1));
+        assertNull(store.get(2));
+        assertNotNull(store.get(3));
+    }
+
+    @Test
+    void getOrCreate_ShouldDropIdleSessions() {
+        GameSessionStore store = new GameSessionStore(8, Duration.ofSeconds(10), clock::get);
+
+        store.getOrCreate(1);
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        store.getOrCreate(2);
+
+        assertNull(store.get(1));
+        assertNotNull(store.get(2));
+    }
+}
@@ -1,23 +1,31 @@
 package caffeine.machines.app;
 
+import caffeine.machines.app.controller.WarmUp;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.in;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+// Test contexts skip the warm-up; a short one is enough to see readiness flip
+@SpringBootTest(properties = {"game.warmup.enabled=true", "game.warmup.max-duration=2s"})
 @AutoConfigureMockMvc
 class HealthControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private WarmUp warmUp;
+
     @Test
     void healthCheck_ShouldReturnOkStatus() throws Exception {
         mockMvc.perform(get("/healthz"))
@@ -34,4 +42,18 @@ class HealthControllerTest {
                 .andExpect(jsonPath("$").value(hasKey("status")))
                 .andExpect(jsonPath("$.*", hasSize(1)));
     }
+
+    @Test
+    void readiness_ShouldReportReadyOnceWarmedUp() throws Exception {
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!warmUp.isComplete() && System.nanoTime() < giveUp) {
+            mockMvc.perform(get("/readyz"))
+                    .andExpect(jsonPath("$.status").value(in(new String[]{"WARMING_UP", "READY"})));
+            Thread.sleep(100);
+        }
+
+        mockMvc.perform(get("/readyz"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("READY"));
+    }
 }
\ No newline at end of file
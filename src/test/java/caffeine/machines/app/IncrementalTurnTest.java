@@ -0,0 +1,210 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.Board;
+import caffeine.machines.app.game.DistanceField;
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.ThreatMap;
+import caffeine.machines.app.game.TurnContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalTurnTest {
+    private static final int SIZE = 13;
+    private static final String[] SHIPS = {"N", "E", "S", "W", ""};
+
+    @Test
+    void update_ShouldMatchFullParseOverManyTurns() {
+        Random random = new Random(7);
+        for (int game = 0; game < 50; game++) {
+            String[][] cells = randomField(random);
+            FieldGrid grid = FieldGrid.of(rows(cells));
+            TurnContext turn = TurnContext.parse(grid, SIZE, 10);
+            byte[] snapshot = TurnContext.cells(grid, SIZE, null);
+
+            for (int step = 0; step < 30; step++) {
+                // Warm the lazy tables so the update has something to carry over
+                turn.getThreatMap(4);
+                turn.getDistanceField();
+                turn.getEnemyVicinity();
+
+                mutate(cells, random);
+                grid = FieldGrid.of(rows(cells));
+                TurnContext expected = TurnContext.parse(grid, SIZE, 9);
+                TurnContext updated = TurnContext.update(turn, snapshot, grid, SIZE, 9);
+                if (updated == null) {
+                    updated = expected;
+                }
+                assertSameTurn(expected, updated);
+
+                turn = updated;
+                snapshot = TurnContext.cells(grid, SIZE, snapshot);
+            }
+        }
+    }
+
+    @Test
+    void update_ShouldFallBackToParseWhenManyCellsChange() {
+        String[][] cells = randomField(new Random(3));
+        FieldGrid grid = FieldGrid.of(rows(cells));
+        TurnContext turn = TurnContext.parse(grid, SIZE, 10);
+        byte[] snapshot = TurnContext.cells(grid, SIZE, null);
+
+        // A narrowing step turns the whole border into asteroids
+        for (int i = 0; i < SIZE; i++) {
+            cells[0][i] = "*";
+            cells[SIZE - 1][i] = "*";
+            cells[i][0] = "*";
+            cells[i][SIZE - 1] = "*";
+        }
+        assertNull(TurnContext.update(turn, snapshot, FieldGrid.of(rows(cells)), SIZE, 0));
+    }
+
+    @Test
+    void update_ShouldKeepThreatMapWhenNoFireLineChanges() {
+        String[][] cells = emptyField();
+        cells[6][6] = "PN";
+        cells[2][2] = "ES";
+        cells[10][10] = "C";
+        FieldGrid grid = FieldGrid.of(rows(cells));
+        TurnContext turn = TurnContext.parse(grid, SIZE, 10);
+        ThreatMap threats = turn.getThreatMap(4);
+        DistanceField distances = turn.getDistanceField();
+        byte[] snapshot = TurnContext.cells(grid, SIZE, null);
+
+        cells[10][10] = "";
+        TurnContext next = TurnContext.update(turn, snapshot, FieldGrid.of(rows(cells)), SIZE, 9);
+        assertNotNull(next);
+        assertEquals(threats.getDanger(4, 2), next.getThreatMap(4).getDanger(4, 2));
+        assertTrue(next.getCoins().isEmpty());
+        assertSame(turn.getEnemies(), next.getEnemies());
+        assertSame(distances, next.getDistanceField());
+
+        // An asteroid on the enemy's fire line shortens it
+        snapshot = TurnContext.cells(FieldGrid.of(rows(cells)), SIZE, snapshot);
+        cells[3][2] = "*";
+        TurnContext blocked = TurnContext.update(next, snapshot, FieldGrid.of(rows(cells)), SIZE, 8);
+        assertNotNull(blocked);
+        assertEquals(0, blocked.getThreatMap(4).getDanger(4, 2));
+        assertNotSame(distances, blocked.getDistanceField());
+    }
+
+    @Test
+    void update_ShouldRetireRecycledDistanceField() {
+        String[][] cells = emptyField();
+        cells[6][6] = "PN";
+        cells[2][2] = "ES";
+        FieldGrid grid = FieldGrid.of(rows(cells));
+        TurnContext turn = TurnContext.parse(grid, SIZE, 10);
+        DistanceField previous = turn.getDistanceField();
+        assertEquals(6, previous.getDistance(0, 6));
+        byte[] snapshot = TurnContext.cells(grid, SIZE, null);
+
+        cells[6][6] = "";
+        cells[5][6] = "PN";
+        grid = FieldGrid.of(rows(cells));
+        TurnContext next = TurnContext.update(turn, snapshot, grid, SIZE, 9);
+        assertNotNull(next);
+        DistanceField distances = next.getDistanceField();
+
+        // A late query on the old field, e.g. from a cancelled strategy, leaves the new one alone
+        assertEquals(DistanceField.UNREACHABLE, previous.getDistance(12, 12));
+        assertNull(previous.getFirstMove(0, 6));
+        DistanceField expected = TurnContext.parse(grid, SIZE, 9).getDistanceField();
+        assertEquals(expected.getDistance(12, 12), distances.getDistance(12, 12));
+        assertEquals(expected.getDistance(0, 6), distances.getDistance(0, 6));
+    }
+
+    private static void assertSameTurn(TurnContext expected, TurnContext actual) {
+        Board expectedBoard = expected.getBoard();
+        Board actualBoard = actual.getBoard();
+        assertArrayEquals(expectedBoard.getAsteroids(), actualBoard.getAsteroids());
+        assertArrayEquals(expectedBoard.getEnemies(), actualBoard.getEnemies());
+        assertArrayEquals(expectedBoard.getCoins(), actualBoard.getCoins());
+        assertArrayEquals(expectedBoard.getWalkable(), actualBoard.getWalkable());
+        assertArrayEquals(expectedBoard.getUnknown(), actualBoard.getUnknown());
+        assertEquals(expected.getPlayer(), actual.getPlayer());
+        assertEquals(expected.getPlayerDirection(), actual.getPlayerDirection());
+        assertEquals(expected.getEnemies(), actual.getEnemies());
+        assertEquals(expected.getCoins(), actual.getCoins());
+        assertEquals(expected.getHash(), actual.getHash());
+
+        ThreatMap expectedThreats = expected.getThreatMap(4);
+        ThreatMap actualThreats = actual.getThreatMap(4);
+        DistanceField expectedDistances = expected.getDistanceField();
+        DistanceField actualDistances = actual.getDistanceField();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                assertEquals(expectedThreats.getDanger(row, col), actualThreats.getDanger(row, col));
+                assertEquals(expectedDistances.getDistance(row, col), actualDistances.getDistance(row, col));
+                assertEquals(expectedBoard.hasAdjacentAsteroid(row, col), actualBoard.hasAdjacentAsteroid(row, col));
+            }
+        }
+        assertArrayEquals(expected.getEnemyVicinity(), actual.getEnemyVicinity());
+    }
+
+    // Player move or turn, enemy move or turn, a coin picked up or dropped, an asteroid appearing
+    private static void mutate(String[][] cells, Random random) {
+        int changes = 1 + random.nextInt(4);
+        for (int i = 0; i < changes; i++) {
+            int row = random.nextInt(SIZE);
+            int col = random.nextInt(SIZE);
+            String content = cells[row][col];
+            if (content.startsWith("P") || content.startsWith("E")) {
+                int[] target = {row + random.nextInt(3) - 1, col + random.nextInt(3) - 1};
+                String ship = content.charAt(0) + SHIPS[random.nextInt(SHIPS.length)];
+                if (inside(target) && cells[target[0]][target[1]].isEmpty()) {
+                    cells[row][col] = "";
+                    cells[target[0]][target[1]] = ship;
+                } else {
+                    cells[row][col] = ship;
+                }
+            } else {
+                cells[row][col] = switch (random.nextInt(4)) {
+                    case 0 -> "*";
+                    case 1 -> "C";
+                    case 2 -> "E" + SHIPS[random.nextInt(SHIPS.length)];
+                    default -> "";
+                };
+            }
+        }
+    }
+
+    private static String[][] randomField(Random random) {
+        String[][] cells = emptyField();
+        for (int i = 0; i < 20; i++) {
+            cells[random.nextInt(SIZE)][random.nextInt(SIZE)] = switch (i % 4) {
+                case 0, 1 -> "*";
+                case 2 -> "C";
+                default -> "E" + SHIPS[random.nextInt(SHIPS.length)];
+            };
+        }
+        cells[random.nextInt(SIZE)][random.nextInt(SIZE)] = "P" + SHIPS[random.nextInt(SHIPS.length)];
+        return cells;
+    }
+
+    private static String[][] emptyField() {
+        String[][] cells = new String[SIZE][SIZE];
+        for (String[] row : cells) {
+            Arrays.fill(row, "");
+        }
+        return cells;
+    }
+
+    private static boolean inside(int[] cell) {
+        return cell[0] >= 0 && cell[0] < SIZE && cell[1] >= 0 && cell[1] < SIZE;
+    }
+
+    private static List<List<String>> rows(String[][] cells) {
+        List<List<String>> rows = new ArrayList<>();
+        for (String[] row : cells) {
+            rows.add(List.of(row));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,63 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveCalculator;
+import caffeine.machines.app.search.LookaheadSearch;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LargeFieldTest {
+    private static final Set<String> MOVES = Set.of("M", "L", "R", "F");
+
+    @Test
+    void calculateMove_ShouldTakeFieldSizeFromRequest() {
+        for (int size : new int[]{100, 1000}) {
+            FieldGrid grid = randomField(size, new Random(size));
+            GameSession session = new GameSession(size, System.nanoTime());
+            LookaheadSearch search = new LookaheadSearch(Duration.ofMillis(20), 6);
+
+            assertTrue(MOVES.contains(new MoveCalculator(grid, session, search, new DecisionCache(0), null).calculateMove(12)));
+            // The next turn of the same game builds on this one
+            assertTrue(MOVES.contains(new MoveCalculator(grid, session, search, new DecisionCache(0), null).calculateMove(11)));
+        }
+    }
+
+    @Test
+    void calculateMove_ShouldLeaveClosingRingOnLargeField() {
+        byte[] cells = new byte[100 * 100];
+        cells[50] = FieldGrid.encode("PW");
+        FieldGrid grid = new FieldGrid(100, 100, cells);
+
+        assertEquals("L", new MoveCalculator(grid, new GameSession(1, System.nanoTime())).calculateMove(1));
+    }
+
+    @Test
+    void calculateMove_ShouldRejectNonSquareField() {
+        byte[] cells = new byte[20 * 13];
+        cells[6 * 20 + 6] = FieldGrid.encode("PN");
+        FieldGrid grid = new FieldGrid(20, 13, cells);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new MoveCalculator(grid, new GameSession(1, System.nanoTime())).calculateMove(12));
+    }
+
+    // Crowded-field density: about a fifth asteroids, a few percent enemies and coins
+    private static FieldGrid randomField(int size, Random random) {
+        String[] contents = {"*", "*", "*", "*", "*", "C", "EN", "ES", "EE", "EW"};
+        byte[] cells = new byte[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            if (random.nextInt(100) < 30) {
+                cells[i] = FieldGrid.encode(contents[random.nextInt(contents.length)]);
+            }
+        }
+        cells[(size / 2) * size + size / 2] = FieldGrid.encode("PN");
+        return new FieldGrid(size, size, cells);
+    }
+}
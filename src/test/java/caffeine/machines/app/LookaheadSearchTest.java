@@ -0,0 +1,88 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.TurnContext;
+import caffeine.machines.app.search.LookaheadSearch;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LookaheadSearchTest {
+
+    private final LookaheadSearch search = new LookaheadSearch(Duration.ofMillis(50), 4);
+
+    @Test
+    void findBestMove_ShouldShootEnemyInFront() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PN");
+        field.get(4).set(6, "EW");
+
+        assertEquals("F", search.findBestMove(TurnContext.parse(field, 13, 15), "M"));
+    }
+
+    @Test
+    void findBestMove_ShouldCollectAdjacentCoin() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PE");
+        field.get(6).set(7, "C");
+
+        assertEquals("M", search.findBestMove(TurnContext.parse(field, 13, 15), "L"));
+    }
+
+    @Test
+    void findBestMove_ShouldNotPlanMovesOnForcedFireTurns() {
+        // Shooting the enemy ahead now would leave the next turn to leave the row, where the
+        // enemy on the left turns to aim; that turn is the forced shot, so step away instead
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PS");
+        field.get(8).set(6, "ES");
+        field.get(6).set(3, "ES");
+        field.get(10).set(9, "C");
+        TurnContext turn = TurnContext.parse(field, 13, 15);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+
+        assertEquals("M", search.findBestMove(turn, "F", deadline, 1));
+    }
+
+    @Test
+    void findBestMove_ShouldFireOnForcedTurn() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PE");
+        field.get(6).set(7, "C");
+
+        assertEquals("F", search.findBestMove(TurnContext.parse(field, 13, 15), "M", System.nanoTime() + 1_000_000, 2));
+    }
+
+    @Test
+    void findBestMove_ShouldAnswerWhenDeadlineHasPassed() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PN");
+
+        String move = search.findBestMove(TurnContext.parse(field, 13, 15), "R", System.nanoTime() - 1);
+
+        assertTrue(List.of("M", "L", "R", "F").contains(move));
+    }
+
+    @Test
+    void findBestMove_ShouldReturnFallbackWhenDisabled() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PN");
+        field.get(4).set(6, "EW");
+
+        LookaheadSearch disabled = new LookaheadSearch(Duration.ZERO, 4);
+
+        assertEquals("L", disabled.findBestMove(TurnContext.parse(field, 13, 15), "L"));
+    }
+
+    private static List<List<String>> emptyField() {
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < 13; row++) {
+            field.add(new ArrayList<>(Collections.nCopies(13, "")));
+        }
+        return field;
+    }
+}
@@ -0,0 +1,40 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.sim.Bot;
+import caffeine.machines.app.sim.MatchResult;
+import caffeine.machines.app.sim.MatchSimulator;
+import caffeine.machines.app.sim.RandomBot;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchSimulatorTest {
+
+    private final MatchSimulator simulator = new MatchSimulator(15, 8, 200);
+
+    @Test
+    void play_ShouldBeDeterministicForSameSeed() {
+        MatchResult first = simulator.play(List.of(new RandomBot(1), new RandomBot(2)), 42);
+        MatchResult second = simulator.play(List.of(new RandomBot(1), new RandomBot(2)), 42);
+
+        assertEquals(first.getTurns(), second.getTurns());
+        assertArrayEquals(first.getScores(), second.getScores());
+        assertEquals(first.getDecisionNanos().length, second.getDecisionNanos().length);
+    }
+
+    @Test
+    void play_ShouldEndWhenNarrowingClosesTheField() {
+        Bot spinner = (field, narrowingIn) -> {
+            assertEquals(13, field.size());
+            return "L";
+        };
+
+        MatchResult result = simulator.play(List.of(spinner, spinner), 7);
+
+        // Nobody moves or shoots, so only the narrowing can end the match
+        assertTrue(result.getTurns() <= 7 * 20);
+        assertTrue(result.getTurns() % 20 == 0);
+    }
+}
@@ -0,0 +1,87 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveCalculator;
+import caffeine.machines.app.search.LookaheadSearch;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MoveAllocationTest {
+    // Per decision once warmed up: the calculator, the turn context with its board copy and
+    // the changed-cell list; search nodes, candidate scoring and the distance search allocate nothing
+    private static final long MAX_BYTES_PER_DECISION = 2_048;
+
+    @Test
+    void calculateMove_ShouldStayWithinAllocationBudget() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        List<List<String>> rows = crowdedField(new Random(11));
+        FieldGrid[] fields = {FieldGrid.of(rows), FieldGrid.of(turnPlayer(rows))};
+        // Budget far above what depth 3 needs, so every decision runs the same full search
+        LookaheadSearch search = new LookaheadSearch(Duration.ofSeconds(1), 3);
+        DecisionCache cache = new DecisionCache(0);
+        GameSession session = new GameSession(1, System.nanoTime());
+
+        // Consecutive turns alternate the player's facing, so each one takes the incremental path
+        for (int i = 0; i < 5_000; i++) {
+            decide(fields[i & 1], session, search, cache);
+        }
+        int decisions = 2_000;
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < decisions; i++) {
+            decide(fields[i & 1], session, search, cache);
+        }
+        long perDecision = (threads.getThreadAllocatedBytes(threadId) - before) / decisions;
+
+        assertTrue(perDecision <= MAX_BYTES_PER_DECISION,
+                "allocated " + perDecision + " bytes per decision, budget " + MAX_BYTES_PER_DECISION);
+    }
+
+    private static void decide(FieldGrid field, GameSession session, LookaheadSearch search, DecisionCache cache) {
+        // Keeps the rotation-loop override out of the measured path
+        session.getLastMoves().clear();
+        assertNotNull(new MoveCalculator(field, session, search, cache, null).calculateMove(12));
+    }
+
+    private static List<List<String>> crowdedField(Random random) {
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < 13; row++) {
+            field.add(new ArrayList<>(Collections.nCopies(13, "")));
+        }
+        field.get(6).set(6, "PN");
+        String[] contents = {"*", "*", "*", "C", "EN", "ES", "EE", "EW"};
+        for (int placed = 0; placed < 40; ) {
+            int row = random.nextInt(13);
+            int col = random.nextInt(13);
+            if (field.get(row).get(col).isEmpty()) {
+                field.get(row).set(col, contents[placed % contents.length]);
+                placed++;
+            }
+        }
+        return field;
+    }
+
+    private static List<List<String>> turnPlayer(List<List<String>> field) {
+        List<List<String>> turned = new ArrayList<>();
+        for (List<String> row : field) {
+            List<String> copy = new ArrayList<>(row);
+            copy.replaceAll(cell -> cell.equals("PN") ? "PE" : cell);
+            turned.add(copy);
+        }
+        return turned;
+    }
+}
@@ -0,0 +1,154 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveCalculator;
+import caffeine.machines.app.game.PatternTable;
+import caffeine.machines.app.game.TurnContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PatternTableTest {
+    private static final int SIZE = 13;
+    private static final String[] FACINGS = {"N", "E", "S", "W"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void lookup_ShouldAnswerRotatedAndMirroredBoardsLikeTheCalculator() throws IOException {
+        Random random = new Random(5);
+        List<byte[]> boards = new ArrayList<>();
+        PatternTable.Builder builder = new PatternTable.Builder();
+        for (int i = 0; i < 300; i++) {
+            byte[] cells = randomCells(random);
+            boards.add(cells);
+            builder.add(TurnContext.parse(new FieldGrid(SIZE, SIZE, cells), SIZE, 10));
+        }
+        Path file = dir.resolve("patterns.bin");
+        builder.write(file, Integer.MAX_VALUE);
+        PatternTable table = PatternTable.load(file);
+
+        for (byte[] cells : boards) {
+            // The neighbourhood in the player's frame is the same however the board is turned
+            byte[] turned = cells;
+            for (int quarter = 1; quarter < 4; quarter++) {
+                turned = rotate(turned);
+                assertSameMove(table, turned, false);
+            }
+            // Mirror images share a slot, but only the side that was added is answered
+            assertSameMove(table, mirror(cells), true);
+        }
+    }
+
+    @Test
+    void lookup_ShouldMissWhenDisabledOrUnknown() throws IOException {
+        Random random = new Random(6);
+        byte[] cells = randomCells(random);
+        assertEquals(PatternTable.MISS, PatternTable.disabled().lookup(TurnContext.parse(new FieldGrid(SIZE, SIZE, cells), SIZE, 10)));
+
+        Path file = dir.resolve("empty.bin");
+        new PatternTable.Builder().write(file, 10);
+        assertEquals(PatternTable.MISS, PatternTable.load(file).lookup(TurnContext.parse(new FieldGrid(SIZE, SIZE, cells), SIZE, 10)));
+    }
+
+    @Test
+    void lookup_ShouldNotAllocate() throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        TurnContext turn = TurnContext.parse(new FieldGrid(SIZE, SIZE, randomCells(new Random(7))), SIZE, 10);
+        PatternTable.Builder builder = new PatternTable.Builder();
+        builder.add(turn);
+        Path file = dir.resolve("one.bin");
+        builder.write(file, 10);
+        PatternTable table = PatternTable.load(file);
+
+        int answers = 0;
+        for (int i = 0; i < 20_000; i++) {
+            answers += table.lookup(turn);
+        }
+        int lookups = 10_000;
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < lookups; i++) {
+            answers += table.lookup(turn);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertNotEquals(0, answers);
+        // Well below one key array per lookup
+        assertTrue(allocated < lookups, "allocated " + allocated + " bytes in " + lookups + " lookups");
+    }
+
+    @Test
+    void load_ShouldRejectOtherFiles() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(UncheckedIOException.class, () -> PatternTable.load(file));
+    }
+
+    private static void assertSameMove(PatternTable table, byte[] cells, boolean mayMiss) {
+        FieldGrid grid = new FieldGrid(SIZE, SIZE, cells);
+        if (!mayMiss) {
+            assertNotEquals(PatternTable.MISS, table.lookup(TurnContext.parse(grid, SIZE, 10)));
+        }
+        String computed = new MoveCalculator(grid, new GameSession(1, 0), null, null, null, null, null, null).calculateMove(10);
+        String looked = new MoveCalculator(grid, new GameSession(1, 0), null, null, null, null, null, table).calculateMove(10);
+        assertEquals(computed, looked);
+    }
+
+    // Crowded around the player, so the emergency checks have something to answer
+    private static byte[] randomCells(Random random) {
+        byte[] cells = new byte[SIZE * SIZE];
+        for (int i = 0; i < cells.length; i++) {
+            int roll = random.nextInt(100);
+            cells[i] = roll < 15 ? FieldGrid.ASTEROID : roll < 30 ? FieldGrid.encode("E" + FACINGS[random.nextInt(4)])
+                    : roll < 34 ? FieldGrid.COIN : FieldGrid.EMPTY;
+        }
+        cells[random.nextInt(cells.length)] = FieldGrid.encode("P" + FACINGS[random.nextInt(4)]);
+        return cells;
+    }
+
+    // A quarter turn clockwise, ships turning along
+    private static byte[] rotate(byte[] cells) {
+        byte[] turned = new byte[cells.length];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                turned[row * SIZE + col] = map(cells[(SIZE - 1 - col) * SIZE + row], "NESW", "ESWN");
+            }
+        }
+        return turned;
+    }
+
+    private static byte[] mirror(byte[] cells) {
+        byte[] mirrored = new byte[cells.length];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                mirrored[row * SIZE + col] = map(cells[row * SIZE + SIZE - 1 - col], "NESW", "NWSE");
+            }
+        }
+        return mirrored;
+    }
+
+    private static byte map(byte code, String from, String to) {
+        String text = FieldGrid.text(code);
+        if (text.length() != 2) {
+            return code;
+        }
+        return FieldGrid.encode(text.charAt(0) + String.valueOf(to.charAt(from.indexOf(text.charAt(1)))));
+    }
+}
@@ -0,0 +1,113 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.replay.ReplayReader;
+import caffeine.machines.app.replay.ReplayRecorder;
+import caffeine.machines.app.replay.ReplayTurn;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void read_ShouldRestoreRecordedTurnsFromDeltas() throws Exception {
+        FieldGrid first = field(6, 6, "PN");
+        FieldGrid second = field(5, 6, "PN");
+        FieldGrid other = field(1, 1, "PE");
+
+        try (ReplayRecorder recorder = new ReplayRecorder(dir, 1 << 16)) {
+            recorder.record(7, 15, first, "M", 1200, new long[]{10, 20, 0, 30});
+            recorder.record(8, 15, other, "F", 300, null);
+            recorder.record(7, 14, second, "L", 900, new long[]{11, 21, 0, 0});
+        }
+
+        List<ReplayTurn> turns = new ArrayList<>();
+        for (Path segment : ReplayReader.segments(dir)) {
+            ReplayReader.read(segment, turns::add);
+        }
+
+        assertEquals(3, turns.size());
+        assertEquals(first.toRows(), turns.get(0).getField().toRows());
+        assertEquals("M", turns.get(0).getMove());
+        assertArrayEquals(new long[]{10, 20, 0, 30}, turns.get(0).getPhaseNanos());
+        assertEquals(8, turns.get(1).getGameId());
+        assertEquals(0, turns.get(1).getPhaseNanos().length);
+        assertEquals(second.toRows(), turns.get(2).getField().toRows());
+        assertEquals(14, turns.get(2).getNarrowingIn());
+        assertEquals(900, turns.get(2).getDecisionNanos());
+    }
+
+    @Test
+    void record_ShouldRollOverToNewSegmentWhenFull() throws Exception {
+        try (ReplayRecorder recorder = new ReplayRecorder(dir, 20_000)) {
+            // One keyframe per game, a few hundred bytes each
+            for (int turn = 0; turn < 200; turn++) {
+                recorder.record(turn, 20 - turn % 20, field(turn % 13, 3, "PS"), "M", 100, null);
+            }
+        }
+
+        List<ReplayTurn> turns = new ArrayList<>();
+        List<Path> segments = ReplayReader.segments(dir);
+        for (Path segment : segments) {
+            ReplayReader.read(segment, turns::add);
+        }
+
+        assertEquals(200, turns.size());
+        assertEquals(field(199 % 13, 3, "PS").toRows(), turns.get(199).getField().toRows());
+        assertTrue(segments.size() > 1);
+    }
+
+    @Test
+    void record_ShouldWriteKeyframeAfterDroppingOversizedOne() throws Exception {
+        byte[] cells = new byte[200 * 200];
+        try (ReplayRecorder recorder = new ReplayRecorder(dir, 20_000)) {
+            recorder.record(3, 20, new FieldGrid(200, 200, cells), "M", 100, null);
+            // Still too big as a keyframe, so it must not become a small delta against the dropped one
+            cells[0] = FieldGrid.ASTEROID;
+            recorder.record(3, 19, new FieldGrid(200, 200, cells), "M", 100, null);
+            recorder.record(4, 19, field(6, 6, "PN"), "L", 100, null);
+        }
+
+        List<ReplayTurn> turns = new ArrayList<>();
+        for (Path segment : ReplayReader.segments(dir)) {
+            ReplayReader.read(segment, turns::add);
+        }
+
+        assertEquals(1, turns.size());
+        assertEquals(4, turns.get(0).getGameId());
+    }
+
+    @Test
+    void constructor_ShouldRejectSegmentsTooSmallForLargestKeyframe() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplayRecorder(dir, 4096));
+    }
+
+    private static FieldGrid field(int playerRow, int playerCol, String player) {
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < 13; row++) {
+            List<String> line = new ArrayList<>();
+            for (int col = 0; col < 13; col++) {
+                String cell = "";
+                if (row == playerRow && col == playerCol) cell = player;
+                else if (row == 2 && col == 9) cell = "ES";
+                else if (row == 10 && col == 4) cell = "C";
+                else if (row == 5 && col == 9) cell = "*";
+                line.add(cell);
+            }
+            field.add(line);
+        }
+        return FieldGrid.of(field);
+    }
+}
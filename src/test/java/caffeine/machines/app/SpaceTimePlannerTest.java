@@ -0,0 +1,95 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.Direction;
+import caffeine.machines.app.game.Position;
+import caffeine.machines.app.game.SpaceTimePlanner;
+import caffeine.machines.app.game.TurnContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceTimePlannerTest {
+
+    @Test
+    void planTo_ShouldMatchStaticRouteOnQuietBoard() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PN");
+        SpaceTimePlanner planner = new SpaceTimePlanner(TurnContext.parse(field, 13, 20), SpaceTimePlanner.DEFAULT_HORIZON);
+
+        SpaceTimePlanner.Route route = planner.planTo(new Position(6, 8));
+        assertEquals("RMM", route.getMoves());
+        assertEquals(new Position(6, 8), route.getTarget());
+    }
+
+    @Test
+    void planTo_ShouldAvoidEnemyFireLine() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(8, "PW");
+        // Covers column 6 from row 3 to row 6, across the straight route
+        field.get(2).set(6, "ES");
+        SpaceTimePlanner planner = new SpaceTimePlanner(TurnContext.parse(field, 13, 20), SpaceTimePlanner.DEFAULT_HORIZON);
+
+        SpaceTimePlanner.Route route = planner.planTo(new Position(6, 4));
+        assertNotNull(route);
+        Position position = new Position(6, 8);
+        Direction facing = Direction.WEST;
+        for (char move : route.getMoves().toCharArray()) {
+            switch (move) {
+                case 'M' -> position = position.move(facing);
+                case 'L' -> facing = facing.turnLeft();
+                default -> facing = facing.turnRight();
+            }
+            assertFalse(position.col == 6 && position.row >= 3 && position.row <= 6, "route crosses fire at " + position);
+        }
+        assertEquals(new Position(6, 4), position);
+        assertNull(planner.planTo(new Position(5, 6)));
+    }
+
+    @Test
+    void planTo_ShouldRejectTargetsClosedBeforeArrival() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PN");
+        SpaceTimePlanner planner = new SpaceTimePlanner(TurnContext.parse(field, 13, 3), SpaceTimePlanner.DEFAULT_HORIZON);
+
+        // The outer ring closes in three turns; reaching row 0 takes six
+        assertNull(planner.planTo(new Position(0, 6)));
+        assertNotNull(planner.planTo(new Position(1, 6)));
+        assertEquals(0, planner.closedRingsAt(2));
+        assertEquals(1, planner.closedRingsAt(3));
+        assertEquals(2, planner.closedRingsAt(23));
+    }
+
+    @Test
+    void planToSafety_ShouldLeaveClosingRing() {
+        List<List<String>> field = emptyField();
+        field.get(0).set(6, "PW");
+        SpaceTimePlanner planner = new SpaceTimePlanner(TurnContext.parse(field, 13, 2), SpaceTimePlanner.DEFAULT_HORIZON);
+
+        SpaceTimePlanner.Route route = planner.planToSafety();
+        assertEquals("LM", route.getMoves());
+        assertEquals(new Position(1, 6), route.getTarget());
+    }
+
+    @Test
+    void planToSafety_ShouldReturnEmptyRouteWhenAlreadySafe() {
+        List<List<String>> field = emptyField();
+        field.get(6).set(6, "PN");
+        SpaceTimePlanner planner = new SpaceTimePlanner(TurnContext.parse(field, 13, 1), SpaceTimePlanner.DEFAULT_HORIZON);
+
+        SpaceTimePlanner.Route route = planner.planToSafety();
+        assertEquals("", route.getMoves());
+        assertNull(route.getFirstMove());
+    }
+
+    private static List<List<String>> emptyField() {
+        List<List<String>> field = new ArrayList<>();
+        for (int row = 0; row < 13; row++) {
+            field.add(new ArrayList<>(Collections.nCopies(13, "")));
+        }
+        return field;
+    }
+}
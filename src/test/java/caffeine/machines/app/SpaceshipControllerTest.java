@@ -0,0 +1,103 @@
+package caffeine.machines.app;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.in;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SpaceshipControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void move_ShouldReturnValidCommand() throws Exception {
+        mockMvc.perform(post("/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gameState(101)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.move").value(in(new String[]{"M", "L", "R", "F"})));
+    }
+
+    @Test
+    void move_ShouldTrackFireCounterPerGame() throws Exception {
+        mockMvc.perform(post("/move").contentType(MediaType.APPLICATION_JSON).content(gameState(201)))
+                .andExpect(jsonPath("$.move").value(in(new String[]{"M", "L", "R"})));
+
+        // A different game must not see the first game's counter
+        mockMvc.perform(post("/move").contentType(MediaType.APPLICATION_JSON).content(gameState(202)))
+                .andExpect(jsonPath("$.move").value(in(new String[]{"M", "L", "R"})));
+
+        mockMvc.perform(post("/move").contentType(MediaType.APPLICATION_JSON).content(gameState(201)))
+                .andExpect(jsonPath("$.move").value("F"));
+    }
+
+    @Test
+    void move_ShouldAnswerWhenDeadlineAlreadyPassed() throws Exception {
+        // The margin exceeds the announced deadline, so only the emergency tier runs
+        mockMvc.perform(post("/move")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Move-Deadline-Ms", "1")
+                        .content(gameState(301)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.move").value(in(new String[]{"M", "L", "R"})));
+    }
+
+    @Test
+    void moves_ShouldAnswerEveryStateInOrderAndIsolateFailures() throws Exception {
+        String broken = "{\"gameId\":503,\"narrowingIn\":15,\"field\":[[\"\",\"C\"],[\"*\",\"\"]]}";
+        mockMvc.perform(post("/moves")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null," + gameState(501) + "," + broken + "," + gameState(502) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                // No state at all: the fallback move
+                .andExpect(jsonPath("$[0].move").value("M"))
+                .andExpect(jsonPath("$[1].move").value(in(new String[]{"M", "L", "R"})))
+                // No player on the board: the fallback move
+                .andExpect(jsonPath("$[2].move").value("M"))
+                .andExpect(jsonPath("$[3].move").value(in(new String[]{"M", "L", "R"})));
+    }
+
+    @Test
+    void metrics_ShouldExposePhaseTimersAndBranchCounters() throws Exception {
+        mockMvc.perform(post("/move").contentType(MediaType.APPLICATION_JSON).content(gameState(401)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/metrics/move.phase").param("tag", "phase:parse"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(greaterThan(0.0)));
+        mockMvc.perform(get("/actuator/metrics/move.phase").param("tag", "phase:deserialize"))
+                .andExpect(jsonPath("$.measurements[0].value").value(greaterThan(0.0)));
+        mockMvc.perform(get("/actuator/metrics/move.branch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[0].tag").value("branch"));
+    }
+
+    static String gameState(int gameId) {
+        StringBuilder json = new StringBuilder("{\"gameId\":").append(gameId).append(",\"narrowingIn\":15,\"field\":[");
+        for (int row = 0; row < 13; row++) {
+            json.append(row == 0 ? "[" : ",[");
+            for (int col = 0; col < 13; col++) {
+                String cell = "";
+                if (row == 6 && col == 6) cell = "PN";
+                else if (row == 2 && col == 2) cell = "ES";
+                else if (row == 10 && col == 4) cell = "C";
+                else if (row == 5 && col == 9) cell = "*";
+                json.append(col == 0 ? "" : ",").append('"').append(cell).append('"');
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,151 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.Deadline;
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.GameSession;
+import caffeine.machines.app.game.MoveCalculator;
+import caffeine.machines.app.game.MoveStrategy;
+import caffeine.machines.app.game.StrategyPortfolio;
+import caffeine.machines.app.game.TurnContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrategyPortfolioTest {
+
+    @Test
+    void calculateMove_ShouldNotDependOnRacing() {
+        try (StrategyPortfolio racing = new StrategyPortfolio(true, List.of())) {
+            Random random = new Random(3);
+            for (int game = 0; game < 200; game++) {
+                FieldGrid grid = randomField(13, random);
+                int narrowingIn = random.nextInt(6);
+                String sequential = new MoveCalculator(grid, new GameSession(game, 0), null, null, null, null, null).calculateMove(narrowingIn);
+                String raced = new MoveCalculator(grid, new GameSession(game, 0), null, null, null, null, racing).calculateMove(narrowingIn);
+                assertEquals(sequential, raced);
+            }
+        }
+    }
+
+    @Test
+    void decide_ShouldPickByPriorityThenScoreThenOrder() {
+        List<MoveStrategy> strategies = List.of(
+                new Fixed("low", 1, "M", 9),
+                new Fixed("first", 2, "L", 5),
+                new Fixed("second", 2, "R", 5),
+                new Fixed("abstains", 3, null, 0));
+        MoveStrategy[] none = {};
+        try (StrategyPortfolio racing = new StrategyPortfolio(true, strategies)) {
+            for (StrategyPortfolio portfolio : List.of(new StrategyPortfolio(false, strategies), racing)) {
+                StrategyPortfolio.Winner winner = portfolio.decide(none, null, Deadline.none());
+                assertEquals("first", winner.getStrategy().getName());
+                assertEquals("L", winner.getProposal().getMove());
+            }
+        }
+    }
+
+    @Test
+    void decide_ShouldCancelStragglersOnceOutranked() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        MoveStrategy slow = new Fixed("slow", 1, "M", 0) {
+            @Override
+            public Proposal propose(TurnContext turn, Deadline deadline) {
+                // Sleeps rather than spins, so the other strategy gets a carrier even on one core
+                try {
+                    while (!deadline.isExpired()) {
+                        Thread.sleep(1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                cancelled.countDown();
+                return null;
+            }
+        };
+        try (StrategyPortfolio racing = new StrategyPortfolio(true, List.of(slow, new Fixed("fast", 2, "L", 0)))) {
+            // Nothing pending can outrank the fast proposal, so the unbounded deadline is not waited for
+            StrategyPortfolio.Winner winner = racing.decide(new MoveStrategy[0], null, Deadline.none());
+            assertEquals("fast", winner.getStrategy().getName());
+            assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void decide_ShouldSettleForFinishedProposalsAtDeadline() {
+        MoveStrategy stuck = new Fixed("stuck", 2, "R", 0) {
+            @Override
+            public Proposal propose(TurnContext turn, Deadline deadline) {
+                try {
+                    Thread.sleep(Duration.ofMinutes(1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.propose(turn, deadline);
+            }
+        };
+        try (StrategyPortfolio racing = new StrategyPortfolio(true, List.of(stuck, new Fixed("quick", 1, "L", 0)))) {
+            long start = System.nanoTime();
+            StrategyPortfolio.Winner winner = racing.decide(new MoveStrategy[0], null, Deadline.after(Duration.ofMillis(50)));
+            assertEquals("quick", winner.getStrategy().getName());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+    }
+
+    @Test
+    void calculateMove_ShouldFollowRegisteredStrategyOfHigherPriority() {
+        MoveStrategy override = new Fixed("override", MoveStrategy.EMERGENCY_PRIORITY + 1, "R", 0);
+        FieldGrid grid = randomField(13, new Random(1));
+        try (StrategyPortfolio racing = new StrategyPortfolio(true, List.of(override))) {
+            for (StrategyPortfolio portfolio : List.of(new StrategyPortfolio(false, List.of(override)), racing)) {
+                assertEquals("R", new MoveCalculator(grid, new GameSession(1, 0), null, null, null, null, portfolio).calculateMove(10));
+            }
+        }
+    }
+
+    private static FieldGrid randomField(int size, Random random) {
+        byte[] cells = new byte[size * size];
+        String[] enemies = {"EN", "ES", "EE", "EW"};
+        for (int i = 0; i < cells.length; i++) {
+            int roll = random.nextInt(100);
+            cells[i] = roll < 15 ? FieldGrid.ASTEROID : roll < 20 ? FieldGrid.encode(enemies[random.nextInt(4)])
+                    : roll < 24 ? FieldGrid.COIN : FieldGrid.EMPTY;
+        }
+        cells[random.nextInt(cells.length)] = FieldGrid.encode("PN");
+        return new FieldGrid(size, size, cells);
+    }
+
+    private static class Fixed implements MoveStrategy {
+        private final String name;
+        private final int priority;
+        private final String move;
+        private final double score;
+
+        Fixed(String name, int priority, String move, double score) {
+            this.name = name;
+            this.priority = priority;
+            this.move = move;
+            this.score = score;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public Proposal propose(TurnContext turn, Deadline deadline) {
+            return move != null ? new Proposal(move, score) : null;
+        }
+    }
+}
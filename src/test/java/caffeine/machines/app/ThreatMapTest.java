@@ -0,0 +1,109 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.Position;
+import caffeine.machines.app.game.ThreatMap;
+import caffeine.machines.app.game.TurnContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreatMapTest {
+    private static final int SIZE = 13;
+    private static final int FIRE_RANGE = 4;
+
+    @Test
+    void getDanger_ShouldCountEveryEnemyThatCanHitCell() {
+        String[][] cells = emptyField();
+        cells[12][6] = "PN";
+        cells[2][2] = "ES";
+        cells[4][0] = "EE";
+        ThreatMap threats = threats(cells);
+
+        // Both lines cross at (4,2)
+        assertEquals(2, threats.getDanger(4, 2));
+        assertEquals(1, threats.getDanger(6, 2));
+        assertEquals(1, threats.getDanger(4, 4));
+        // One step beyond the fire range of either ship
+        assertEquals(0, threats.getDanger(7, 2));
+        assertEquals(0, threats.getDanger(4, 5));
+        assertEquals(0, threats.getDanger(2, 2));
+        assertEquals(0, threats.getDanger(-1, 2));
+    }
+
+    @Test
+    void getDanger_ShouldStopShotAtFirstBlockedCell() {
+        String[][] cells = emptyField();
+        cells[12][6] = "PN";
+        cells[10][8] = "EN";
+        cells[8][8] = "*";
+        ThreatMap threats = threats(cells);
+
+        assertEquals(1, threats.getDanger(9, 8));
+        // The asteroid is hit, the cells behind it are covered
+        assertEquals(1, threats.getDanger(8, 8));
+        assertEquals(0, threats.getDanger(7, 8));
+        assertEquals(0, threats.getDanger(6, 8));
+    }
+
+    @Test
+    void canEnemyHit_ShouldOnlyAcceptCellsOnLineWithinReach() {
+        String[][] cells = emptyField();
+        cells[12][6] = "PN";
+        cells[2][2] = "ES";
+        cells[5][2] = "*";
+        TurnContext turn = TurnContext.parse(FieldGrid.of(rows(cells)), SIZE, 10);
+        ThreatMap threats = turn.getThreatMap(FIRE_RANGE);
+        int enemy = turn.getEnemies().indexOf(new Position(2, 2));
+
+        assertTrue(threats.canEnemyHit(enemy, 3, 2));
+        assertTrue(threats.canEnemyHit(enemy, 5, 2));
+        // Beside the line, behind the ship, on the ship and behind the asteroid
+        assertFalse(threats.canEnemyHit(enemy, 4, 3));
+        assertFalse(threats.canEnemyHit(enemy, 4, 1));
+        assertFalse(threats.canEnemyHit(enemy, 1, 2));
+        assertFalse(threats.canEnemyHit(enemy, 2, 2));
+        assertFalse(threats.canEnemyHit(enemy, 6, 2));
+    }
+
+    @Test
+    void getWallDistance_ShouldBeZeroOnBorders() {
+        String[][] cells = emptyField();
+        cells[6][6] = "PN";
+        ThreatMap threats = threats(cells);
+
+        assertEquals(0, threats.getWallDistance(0, 5));
+        assertEquals(0, threats.getWallDistance(12, 12));
+        assertEquals(0, threats.getWallDistance(7, 0));
+        assertEquals(0, threats.getWallDistance(3, 12));
+        assertEquals(1, threats.getWallDistance(1, 11));
+        assertEquals(2, threats.getWallDistance(10, 4));
+        assertEquals(6, threats.getWallDistance(6, 6));
+        assertEquals(-1, threats.getWallDistance(-1, 0));
+        assertEquals(-1, threats.getWallDistance(0, SIZE));
+    }
+
+    private static ThreatMap threats(String[][] cells) {
+        return TurnContext.parse(FieldGrid.of(rows(cells)), SIZE, 10).getThreatMap(FIRE_RANGE);
+    }
+
+    private static String[][] emptyField() {
+        String[][] cells = new String[SIZE][SIZE];
+        for (String[] row : cells) {
+            Arrays.fill(row, "");
+        }
+        return cells;
+    }
+
+    private static List<List<String>> rows(String[][] cells) {
+        List<List<String>> rows = new ArrayList<>();
+        for (String[] row : cells) {
+            rows.add(List.of(row));
+        }
+        return rows;
+    }
+}
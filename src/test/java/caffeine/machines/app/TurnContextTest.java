@@ -0,0 +1,84 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.game.Direction;
+import caffeine.machines.app.game.FieldGrid;
+import caffeine.machines.app.game.Position;
+import caffeine.machines.app.game.TurnContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TurnContextTest {
+    private static final int SIZE = 13;
+
+    @Test
+    void parse_ShouldDecodePlayerAndFacing() {
+        String[][] cells = emptyField();
+        cells[3][7] = "PW";
+        cells[10][4] = "C";
+        TurnContext turn = TurnContext.parse(FieldGrid.of(rows(cells)), SIZE, 12);
+
+        assertEquals(new Position(3, 7), turn.getPlayer());
+        assertEquals(Direction.WEST, turn.getPlayerDirection());
+        assertEquals(List.of(new Position(10, 4)), turn.getCoins());
+        assertEquals(12, turn.getNarrowingIn());
+    }
+
+    @Test
+    void parse_ShouldDecodeEnemyFacingsOrFaceTheCentre() {
+        String[][] cells = emptyField();
+        cells[6][6] = "PN";
+        cells[2][2] = "ES";
+        cells[8][9] = "EW";
+        // No facing: towards the centre along the longer axis, horizontally on a tie
+        cells[1][6] = "E";
+        cells[6][11] = "E";
+        cells[0][0] = "E";
+        TurnContext turn = TurnContext.parse(FieldGrid.of(rows(cells)), SIZE, 10);
+
+        assertEquals(5, turn.getEnemies().size());
+        assertEquals(Direction.SOUTH, turn.getEnemyDirection(2, 2));
+        assertEquals(Direction.WEST, turn.getEnemyDirection(8, 9));
+        assertEquals(Direction.SOUTH, turn.getEnemyDirection(1, 6));
+        assertEquals(Direction.WEST, turn.getEnemyDirection(6, 11));
+        assertEquals(Direction.EAST, turn.getEnemyDirection(0, 0));
+    }
+
+    @Test
+    void parse_ShouldFaceThePlayerTowardsTheCentreWithoutFacing() {
+        String[][] cells = emptyField();
+        cells[11][5] = "P";
+        TurnContext turn = TurnContext.parse(FieldGrid.of(rows(cells)), SIZE, 10);
+
+        assertEquals(Direction.NORTH, turn.getPlayerDirection());
+    }
+
+    @Test
+    void parse_ShouldRejectFieldWithoutPlayer() {
+        String[][] cells = emptyField();
+        cells[2][2] = "ES";
+        FieldGrid grid = FieldGrid.of(rows(cells));
+
+        assertThrows(IllegalStateException.class, () -> TurnContext.parse(grid, SIZE, 10));
+    }
+
+    private static String[][] emptyField() {
+        String[][] cells = new String[SIZE][SIZE];
+        for (String[] row : cells) {
+            Arrays.fill(row, "");
+        }
+        return cells;
+    }
+
+    private static List<List<String>> rows(String[][] cells) {
+        List<List<String>> rows = new ArrayList<>();
+        for (String[] row : cells) {
+            rows.add(List.of(row));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,40 @@
+package caffeine.machines.app;
+
+import caffeine.machines.app.controller.WarmUp;
+import caffeine.machines.app.game.DecisionCache;
+import caffeine.machines.app.game.MoveMetrics;
+import caffeine.machines.app.game.MoveService;
+import caffeine.machines.app.replay.ReplayRecorder;
+import caffeine.machines.app.search.LookaheadSearch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmUpTest {
+
+    @Test
+    void run_ShouldRunThePipelineOnEveryDecision() {
+        MoveMetrics metrics = MoveMetrics.standalone();
+        MoveService moveService = new MoveService(new LookaheadSearch(Duration.ofMillis(2), 3), new DecisionCache(0),
+                metrics, ReplayRecorder.disabled());
+        WarmUp warmUp = new WarmUp(moveService, new ObjectMapper(), true, Duration.ofSeconds(2));
+
+        assertFalse(warmUp.isComplete());
+        int decisions = warmUp.run();
+        assertTrue(decisions > 0);
+        assertTrue(warmUp.isComplete());
+        // No forced shots in between
+        assertEquals(0, metrics.getCount(MoveMetrics.Branch.FIRE));
+    }
+
+    @Test
+    void isComplete_ShouldBeTrueWhenDisabled() {
+        MoveService moveService = new MoveService(new LookaheadSearch(Duration.ofMillis(2), 3), new DecisionCache(0));
+        WarmUp warmUp = new WarmUp(moveService, new ObjectMapper(), false, Duration.ofSeconds(30));
+
+        assertTrue(warmUp.isComplete());
+    }
+}